@@ -42,18 +42,19 @@ public class AnaxBaseRunner implements CommandLineRunner{
             }
         }
 
+        final boolean planFailed;
         if (parallel > 0) {
             //do parallel
-            suiteRunner.createParallelPlan(parallel);
+            planFailed = suiteRunner.createParallelPlan(parallel, strings);
         } else {
-            final boolean planFailed = suiteRunner.createExecutionPlan(true);
-            if (planFailed) {
-                log.info("Plan failed, exit will make CI unstable/fail [100]");
-                System.exit(100);
-            } else {
-                log.info("Plan passed [0]");
-                System.exit(0);
-            }
+            planFailed = suiteRunner.createExecutionPlan(true);
+        }
+        if (planFailed) {
+            log.info("Plan failed, exit will make CI unstable/fail [100]");
+            System.exit(100);
+        } else {
+            log.info("Plan passed [0]");
+            System.exit(0);
         }
     }
 }
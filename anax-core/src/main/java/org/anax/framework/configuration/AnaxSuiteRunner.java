@@ -2,15 +2,23 @@ package org.anax.framework.configuration;
 
 import com.google.common.collect.Lists;
 import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.controllers.AdaptiveWait;
+import org.anax.framework.controllers.SerializedWebController;
 import org.anax.framework.controllers.WebController;
+import org.anax.framework.controllers.WebControllerFactory;
+import org.anax.framework.controllers.WebControllerPool;
+import org.anax.framework.controllers.WebDriverWebController;
+import org.anax.framework.model.CapturedOutput;
 import org.anax.framework.model.Suite;
 import org.anax.framework.model.Test;
 import org.anax.framework.model.TestMethod;
 import org.anax.framework.model.TestResult;
 import org.anax.framework.reporting.AnaxTestReporter;
+import org.anax.framework.reporting.JUnitReportMerger;
 import org.anax.framework.reporting.ReportException;
 import org.anax.framework.reporting.ReporterSupportsScreenshot;
 import org.anax.framework.reporting.ReporterSupportsVideo;
+import org.anax.framework.reporting.SynchronizedTestReporter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -18,14 +26,20 @@ import org.springframework.stereotype.Component;
 import javax.annotation.PostConstruct;
 import java.io.*;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Component
 @Slf4j
@@ -39,11 +53,27 @@ public class AnaxSuiteRunner {
 
     @Value("${anax.report.directory:reports/}") String reportDirectory;
     @Value("${anax.exec.suite:ALL}") String executeSuite;
+    @Value("${" + ParallelPlanRunner.EXEC_TEST_PROPERTY + ":ALL}") String executeTest;
     @Value("${enable.video:true}") Boolean videoOn;
     @Value("${enable.screenshot:true}") Boolean screenshotOn;
+    @Value("${anax.parallel.threads:0}") int parallelThreads;
+    @Value("${anax.defaultWaitSeconds:5}") Integer defaultWaitSeconds;
+    @Value("${anax.capture.maxMemoryBytes:1048576}") int captureMaxMemoryBytes;
 
     @Autowired
     WebController controller;
+    @Autowired(required = false)
+    AnaxDriver anaxDriver;
+    @Autowired
+    WebControllerFactory controllerFactory;
+
+    /** the recording streams of the test method executing in the current thread */
+    private static final ThreadLocal<OutputStream> recordedOut = new ThreadLocal<>();
+    private static final ThreadLocal<OutputStream> recordedErr = new ThreadLocal<>();
+    private static final AtomicBoolean recordingInstalled = new AtomicBoolean(false);
+
+    /** the controllers of the parallel Tests, kept from suite to suite when browser sessions are pooled */
+    private WebControllerPool controllerPool;
 
     public AnaxSuiteRunner(@Autowired AnaxTestReporter reporter) {
         this.reporter = reporter;
@@ -57,36 +87,89 @@ public class AnaxSuiteRunner {
         if (!dir.exists()) {
             dir.mkdirs();
         }
+        // output beyond the memory limit spills to files next to the reports
+        CapturedOutput.configure(new File(dir, "capture"), captureMaxMemoryBytes);
+
+        // out and err are recorded per thread, so that parallel tests do not mix their output
+        if (recordingInstalled.compareAndSet(false, true)) {
+            System.setOut(new PrintStream(new RecordingOutputStream(System.out, recordedOut), true));
+            System.setErr(new PrintStream(new RecordingOutputStream(System.err, recordedErr), true));
+        }
     }
 
-    public void createParallelPlan(int threadPoolSize) {
+    /**
+     * Executes every selected Test in its own child process, at most threadPoolSize at a time, and merges the
+     * reports of each suite once all its Tests have completed.
+     * @param threadPoolSize the number of concurrent child processes
+     * @param arguments the program arguments, passed on to the child processes
+     * @return true if any of the child processes failed
+     */
+    public boolean createParallelPlan(int threadPoolSize, String... arguments) {
 
         final ExecutorService pool = Executors.newFixedThreadPool(threadPoolSize);
+        final Map<String, List<ParallelPlanRunner>> plan = new HashMap<>();
+        AtomicBoolean globalFailures = new AtomicBoolean(false);
 
         suitesMap.keySet().stream().forEach((String name) -> {
-            try {
-                if (!executeSuite.contentEquals("ALL") &&
-                        !executeSuite.contentEquals(name)) {
-                    log.warn("Suite {} not selected for execution (selected: {})", name, executeSuite);
-                } else {
-                    final Suite suite = suitesMap.get(name);
-
-                    suite.getTests().forEach(test -> {
-                        pool.submit(() -> {
-                            ParallelPlanRunner runner =
-                                    new ParallelPlanRunner(suite, test);
-                            runner.executeAndWait();
-                        });
-                    });
+            if (!executeSuite.contentEquals("ALL") &&
+                    !executeSuite.contentEquals(name)) {
+                log.warn("Suite {} not selected for execution (selected: {})", name, executeSuite);
+            } else {
+                final Suite suite = suitesMap.get(name);
+                final File suiteDirectory = new File(new File(reportDirectory, "parallel"), name);
+
+                List<Test> copy = Lists.newArrayList(suite.getTests());
+                copy.sort(Comparator.comparingInt(Test::getPriority));
+                copy.forEach(test -> {
+                    ParallelPlanRunner runner =
+                            new ParallelPlanRunner(suite, test, new File(suiteDirectory, test.getTestBeanName()), arguments);
+                    plan.computeIfAbsent(name, k -> new ArrayList<>()).add(runner);
+                    pool.submit(runner::executeAndWait);
+                });
+            }
+        });
 
+        pool.shutdown();
+        try {
+            while (!pool.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.info("Waiting for parallel tests to complete...");
+            }
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for parallel tests, terminating them");
+            pool.shutdownNow();
+            Thread.currentThread().interrupt();
+            globalFailures.set(true);
+        }
 
+        final boolean junitReports = JUnitReportMerger.producesReports(reporter);
+        plan.forEach((name, runners) -> {
+            Map<String, File> shards = new LinkedHashMap<>();
+            Map<String, String> crashes = new LinkedHashMap<>();
+            runners.forEach(runner -> {
+                final String testBeanName = runner.getTest().getTestBeanName();
+                shards.put(testBeanName, runner.getShardDirectory());
+                if (runner.getExitCode() != 0) {
+                    globalFailures.set(true);
+                    if (runner.getExitCode() != 100) { // 100 is a completed plan with failures
+                        crashes.put(testBeanName, "Process exited with code " + runner.getExitCode() + ", see "
+                                + new File(runner.getShardDirectory(), ParallelPlanRunner.CONSOLE_LOG).getPath());
+                    }
                 }
-            } catch (Exception rpe) {
-                log.error("Failed to initialize, check reports subsystem {}", rpe.getMessage(), rpe);
+            });
+            if (!junitReports) { // the shards reported through the configured reporters, there is nothing to merge
+                crashes.forEach((test, reason) -> log.error("Test {} of suite {} did not complete: {}", test, name, reason));
+                return;
+            }
+            try {
+                JUnitReportMerger.merge(name, shards, crashes, reportDirectory);
+            } catch (ReportException rpe) {
+                globalFailures.set(true);
+                log.error("Failed to merge reports of suite {}: {}", name, rpe.getMessage(), rpe);
             }
         });
 
-
+        quitSessions();
+        return globalFailures.get();
     }
 
     public boolean createExecutionPlan(boolean executePlan) {
@@ -127,13 +210,18 @@ public class AnaxSuiteRunner {
                         globalFailures.set(true);
                         throw new ReportException("IO Error writing report file : " + ioe.getMessage(), ioe);
                     } finally {
-			            controller.quit();
-		            }
+                        if (!(anaxDriver instanceof WebDriverSessionPool)) { // pooled sessions are recycled per Test
+                            controller.quit();
+                        }
+                    }
                 }
             } catch (ReportException rpe) {
                 log.error("Failed to initialize, check reports subsystem {}", rpe.getMessage(),rpe);
             }
         });
+        if (anaxDriver instanceof WebDriverSessionPool) {
+            quitSessions();
+        }
         return globalFailures.get();
     }
 
@@ -146,11 +234,20 @@ public class AnaxSuiteRunner {
 
         List<Test> copy = Lists.newArrayList(suite.getTests());
         copy.sort(Comparator.comparingInt(Test::getPriority));
-        copy.forEach(test -> {
-            reporter.startAnaxTest(test);
-            executeTest(suite, test);
-            reporter.endAnaxTest(test);
-        });
+        if (!executeTest.contentEquals("ALL")) {
+            copy.removeIf(test -> !executeTest.contentEquals(test.getTestBeanName()));
+            log.info("Test selected for execution: {}, {} found", executeTest, copy.size());
+        }
+        if (parallelThreads > 0) {
+            executeTestsInParallel(suite, copy);
+        } else {
+            copy.forEach(test -> {
+                reporter.startAnaxTest(test);
+                executeTest(suite, test, reporter);
+                reporter.endAnaxTest(test);
+                recycleSession(controller);
+            });
+        }
 
         log.trace("Setting stderr and stdout to suite");
         reporter.setSystemError(suite.getErr().toString());
@@ -158,12 +255,98 @@ public class AnaxSuiteRunner {
         log.trace("Ending suite reporting...");
         final boolean fail = reporter.endTestSuite(suite);
         log.trace("Suite reporting has completed");
+        discardOutput(suite);
         log.info("SUITE END: {}", suite.getName());
+        log.info("Controller waits so far: {}", AdaptiveWait.statistics());
 
         return fail;
     }
 
-    private void executeTest(Suite suite, Test test) {
+    /**
+     * Executes the Tests of a suite in parallelThreads threads of this JVM. Each thread leases its own controller from a
+     * {@link WebControllerPool} for the duration of a Test and reports through a synchronized reporter. When browser
+     * sessions are pooled, the controllers and their sessions are kept for the next suite, and quit with the others at
+     * the end of the run.
+     * @param suite the suite
+     * @param tests the Tests to execute, in priority order
+     */
+    private void executeTestsInParallel(Suite suite, List<Test> tests) {
+        log.info("Executing {} tests of suite {} in {} threads", tests.size(), suite.getName(), parallelThreads);
+        if (controllerPool == null) {
+            controllerPool = new WebControllerPool(controllerFactory, anaxDriver, defaultWaitSeconds, parallelThreads);
+        }
+        final WebControllerPool pool = controllerPool;
+        final AnaxTestReporter synchronizedReporter = SynchronizedTestReporter.synchronize(reporter);
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelThreads);
+
+        List<Future<?>> futures = tests.stream().map(test -> executor.submit(() -> {
+            try {
+                pool.lease();
+                synchronizedReporter.startAnaxTest(test);
+                executeTest(suite, test, synchronizedReporter);
+                synchronizedReporter.endAnaxTest(test);
+            } catch (Exception e) {
+                log.error("Failed to execute test {}: {}", test.getTestBeanName(), e.getMessage(), e);
+                suite.addError();
+            } finally {
+                recycleSession(WebControllerPool.current());
+                pool.release();
+            }
+        })).collect(Collectors.toList());
+
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for parallel tests of suite {}", suite.getName());
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.error("Parallel test execution failed: {}", e.getMessage(), e);
+        } finally {
+            executor.shutdown();
+            if (!(anaxDriver instanceof WebDriverSessionPool)) { // pooled sessions are recycled per Test
+                pool.quitAll();
+            }
+        }
+    }
+
+    /**
+     * When browser sessions are pooled, resets the session of the controller for the next Test, or replaces it with a
+     * fresh one if it crashed or reached its maximum age.
+     * @param webController the controller that executed the previous Test
+     */
+    private void recycleSession(WebController webController) {
+        WebController target = webController == null ? null : SerializedWebController.target(webController);
+        if (anaxDriver instanceof WebDriverSessionPool && target instanceof WebDriverWebController) {
+            WebDriverWebController webDriverController = (WebDriverWebController) target;
+            try {
+                // no screenshot of a browser recording while the session is swapped
+                SerializedWebController.between(webController, () -> {
+                    webDriverController.setDriver(((WebDriverSessionPool) anaxDriver).recycle(webDriverController.getDriver()));
+                    return null;
+                });
+            } catch (Exception e) {
+                log.error("Failed to recycle browser session: {}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Quits the controller, those of the parallel Tests and, when browser sessions are pooled, the spare sessions
+     */
+    private void quitSessions() {
+        controller.quit();
+        if (controllerPool != null) {
+            controllerPool.quitAll();
+        }
+        if (anaxDriver instanceof WebDriverSessionPool) {
+            ((WebDriverSessionPool) anaxDriver).shutdown();
+        }
+    }
+
+    private void executeTest(Suite suite, Test test, AnaxTestReporter reporter) {
         AtomicBoolean globalSkip = new AtomicBoolean(false);
 
         log.info("--------------");
@@ -185,10 +368,9 @@ public class AnaxSuiteRunner {
         test.getTestBeforeMethods().sort(Comparator.comparingInt(TestMethod::getOrdering));//sort beforeTest via order
         test.getTestBeforeMethods().forEach(tm -> {
             log.info("---- BEFORE START: {}", tm.getTestMethod());
-            TestResult result = executeRecordingResult(suite, test, tm, false);
+            TestResult result = executeRecordingResult(suite, test, tm, tm, false);
             if (result.notPassed()) { // if before is skipped, execute no other method - all are skipped.
                 globalSkip.set(true);
-                tm.getStdOut().append(result.getStdOutput());
                 reporter.startTest(test,tm);
                 reporter.addSkipped(test, tm, "Skipped due to @AnaxBefore failure");
                 reporter.endTest(test, tm);
@@ -214,9 +396,7 @@ public class AnaxSuiteRunner {
 
                     //execute method!
                     if (localSkip.get() == false) {
-                        TestResult result = executeRecordingResult(suite, test, testMethod, true);
-                        testMethod.getStdErr().append(result.getStdError());
-                        testMethod.getStdOut().append(result.getStdOutput());
+                        TestResult result = executeRecordingResult(suite, test, testMethod, testMethod, true);
                         if (result.notPassed()) {
                             localSkip.set(true);
                             if (result.isInError()) {
@@ -251,7 +431,7 @@ public class AnaxSuiteRunner {
         //after testmethod:
         test.getTestAfterMethods().forEach(tm -> {
             log.info("AFTER START: {}", tm.getTestMethod());
-            TestResult result = executeRecordingResult(suite, test, tm, false);
+            TestResult result = executeRecordingResult(suite, test, tm, null, false);
             if (result.notPassed()) { // if before is skipped, execute no other method - all are skipped.
                 globalSkip.set(true);
             }
@@ -260,30 +440,46 @@ public class AnaxSuiteRunner {
         });
     }
 
+    /**
+     * Deletes the spilled output of the suite and its test methods, once reported
+     * @param suite the suite
+     */
+    private static void discardOutput(Suite suite) {
+        suite.getOut().discard();
+        suite.getErr().discard();
+        suite.getTests().stream()
+                .flatMap(test -> Stream.of(test.getTestMethods(), test.getTestBeforeMethods(), test.getTestAfterMethods(),
+                        test.getTestPreconditions(), test.getTestPostconditions()))
+                .flatMap(List::stream)
+                .forEach(method -> {
+                    method.getStdOut().discard();
+                    method.getStdErr().discard();
+                });
+    }
+
     private void executePrePost(Suite suite, Test test, TestMethod testMethod, AtomicBoolean localSkip, TestMethod tp) {
         if (localSkip.get() == false) {
-            TestResult result = executeRecordingResult(suite, test, tp, false);
-            testMethod.getStdErr().append(result.getStdError());
-            testMethod.getStdOut().append(result.getStdOutput());
+            TestResult result = executeRecordingResult(suite, test, tp, testMethod, false);
             if (result.notPassed()) {
                 localSkip.set(true);
             }
         }
     }
 
-    private TestResult executeRecordingResult(Suite suite, Test test, TestMethod tm, boolean isTest) {
+    /**
+     * Executes a method, recording its out and err
+     * @param owner the test method whose output includes this execution, null if none
+     */
+    private TestResult executeRecordingResult(Suite suite, Test test, TestMethod tm, TestMethod owner, boolean isTest) {
 
         TestResult result = new TestResult();
-        // capture stream for out
-        ByteArrayOutputStream storedOut = new ByteArrayOutputStream();
-        ByteArrayOutputStream storedErr = new ByteArrayOutputStream();
+        // capture stream for out, bounded in memory
+        CapturedOutput storedOut = new CapturedOutput();
+        CapturedOutput storedErr = new CapturedOutput();
 
-        PrintStream originalOut = System.out;
-        PrintStream originalErr = System.err;
-
-        System.setOut( new PrintStream( new DuplicatingOutputStream(originalOut, storedOut) ));
-        System.setErr( new PrintStream( new DuplicatingOutputStream(originalErr, storedErr)));
-        log.trace("Replaced out and error streams with recording versions");
+        recordedOut.set(storedOut);
+        recordedErr.set(storedErr);
+        log.trace("Recording out and error streams");
         //execute method
         log.debug("About to execute {} ", tm.getTestMethod());
 
@@ -322,11 +518,19 @@ public class AnaxSuiteRunner {
             result.setThrowable(e);
             log.info("Method {} threw exception {}", tm.getTestMethod(), e);
         } finally {
-            result.setStdError(storedErr.toString());
-            result.setStdOutput(storedOut.toString());
-
-            suite.getOut().append(result.getStdOutput());
-            suite.getErr().append(result.getStdError());
+            // stop recording
+            recordedOut.remove();
+            recordedErr.remove();
+            log.trace("Stopped recording out and error streams");
+
+            if (owner != null) {
+                owner.getStdErr().append(storedErr);
+                owner.getStdOut().append(storedOut);
+            }
+            suite.getOut().append(storedOut);
+            suite.getErr().append(storedErr);
+            storedOut.discard();
+            storedErr.discard();
             if (isTest) {
                 if (result.isFailed()) {
                     suite.addFailed();
@@ -340,12 +544,6 @@ public class AnaxSuiteRunner {
             }
             suite.addExecutionTime(execTime);
         }
-        // replace original stream
-        System.setOut(originalOut);
-        System.setErr(originalErr);
-        log.trace("Replaced out and error streams with original versions");
-
-
         return result;
     }
 
@@ -421,30 +619,43 @@ public class AnaxSuiteRunner {
     }
 
 
-    private class DuplicatingOutputStream extends OutputStream {
-        private final OutputStream firstStream;
-        private final OutputStream secondStream;
+    /**
+     * Writes to the original stream and, if the current thread is recording, to the recording stream of the thread.
+     */
+    private static class RecordingOutputStream extends OutputStream {
+        private final OutputStream original;
+        private final ThreadLocal<OutputStream> recording;
 
-        public DuplicatingOutputStream(OutputStream firstStream, OutputStream secondStream) {
-            this.firstStream = firstStream;
-            this.secondStream = secondStream;
+        public RecordingOutputStream(OutputStream original, ThreadLocal<OutputStream> recording) {
+            this.original = original;
+            this.recording = recording;
         }
 
         @Override
         public void write(int b) throws IOException {
-            firstStream.write(b);
-            secondStream.write(b);
+            original.write(b);
+            OutputStream stream = recording.get();
+            if (stream != null) {
+                stream.write(b);
+            }
         }
 
         @Override
         public void write(byte[] b) throws IOException {
-            firstStream.write(b);
-            secondStream.write(b);
+            write(b, 0, b.length);
         }
 
         public void write(byte[] b, int off, int len) throws IOException {
-            firstStream.write(b,off,len);
-            secondStream.write(b,off,len);
+            original.write(b,off,len);
+            OutputStream stream = recording.get();
+            if (stream != null) {
+                stream.write(b, off, len);
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            original.flush();
         }
     }
 }
@@ -0,0 +1,29 @@
+package org.anax.framework.configuration;
+
+import org.anax.framework.controllers.SerializedWebController;
+import org.anax.framework.controllers.WebController;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the recording of the browser, enabled with anax.video.source=browser. The screenshots of the
+ * recording are taken in the background, on the driver of the Tests: the WebController bean is replaced with a
+ * serialized controller, so that they are taken between the commands of the Tests.
+ */
+@Configuration
+public class BrowserRecordingConfiguration {
+
+    @Bean
+    @ConditionalOnExpression("'${anax.video.source:screen}'.equalsIgnoreCase('browser')")
+    static BeanPostProcessor serializedWebControllerPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                return bean instanceof WebController ? SerializedWebController.serialized((WebController) bean) : bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,128 @@
+package org.anax.framework.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.controllers.Locator;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfigurationPackages;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Validates and caches, as beans are registered, the locators that page objects declare as constants: static final
+ * String fields of the bean class and String fields of the enums nested in it (as in GooglePageLocators). A malformed
+ * locator fails the startup instead of the Test that uses it. Disabled with anax.locators.precompile=false.
+ * <p>
+ * Only the beans of the application's packages, those of its {@code @SpringBootApplication}, are page objects; the
+ * constants of the other beans are not locators, even when they look like one. Without those packages every bean is
+ * inspected, and a malformed locator is only logged.
+ */
+@Component
+@Slf4j
+public class LocatorPrecompiler implements BeanPostProcessor, BeanFactoryAware {
+
+    private static final Pattern LOCATOR = Pattern.compile("^(xpath=|css=|name=|link=|id=|//).*", Pattern.DOTALL);
+
+    private final Set<Class<?>> inspected = ConcurrentHashMap.newKeySet();
+
+    @Value("${anax.locators.precompile:true}") boolean enabled;
+
+    /** the packages of the application, empty if not known */
+    private List<String> packages = Collections.emptyList();
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        if (AutoConfigurationPackages.has(beanFactory)) {
+            packages = AutoConfigurationPackages.get(beanFactory);
+        }
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+        Class<?> beanClass = ClassUtils.getUserClass(bean);
+        if (!enabled || beanClass.getName().startsWith("org.springframework") || !isApplicationClass(beanClass) || !inspected.add(beanClass)) {
+            return bean;
+        }
+        List<String> errors = new ArrayList<>();
+        int count = precompileConstants(beanClass, errors);
+        for (Class<?> nested : beanClass.getDeclaredClasses()) {
+            if (nested.isEnum()) {
+                count += precompileEnum(nested, errors);
+            } else {
+                count += precompileConstants(nested, errors);
+            }
+        }
+        if (!errors.isEmpty()) {
+            if (packages.isEmpty()) {
+                log.warn("Malformed locators in {}, if it is a page object: {}", beanClass.getName(), errors);
+            } else {
+                throw new BeanInitializationException("Malformed locators in " + beanClass.getName() + ": " + errors);
+            }
+        }
+        if (count > 0) {
+            log.debug("Precompiled {} locators of {}", count, beanClass.getName());
+        }
+        return bean;
+    }
+
+    private boolean isApplicationClass(Class<?> beanClass) {
+        return packages.isEmpty() || packages.stream().anyMatch(it -> beanClass.getName().startsWith(it + "."));
+    }
+
+    private int precompileConstants(Class<?> type, List<String> errors) {
+        int count = 0;
+        for (Field field : type.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (field.getType() == String.class && Modifier.isStatic(modifiers) && Modifier.isFinal(modifiers)) {
+                count += precompile(type.getSimpleName() + "." + field.getName(), readField(field, null), errors);
+            }
+        }
+        return count;
+    }
+
+    private int precompileEnum(Class<?> type, List<String> errors) {
+        int count = 0;
+        for (Object constant : type.getEnumConstants()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (field.getType() == String.class && !Modifier.isStatic(field.getModifiers())) {
+                    count += precompile(type.getSimpleName() + "." + constant, readField(field, constant), errors);
+                }
+            }
+        }
+        return count + precompileConstants(type, errors);
+    }
+
+    private int precompile(String name, String value, List<String> errors) {
+        if (value == null || !LOCATOR.matcher(value).matches()) {
+            return 0;
+        }
+        try {
+            Locator.precompile(value);
+        } catch (IllegalArgumentException e) {
+            errors.add(name + ": " + e.getMessage());
+        }
+        return 1;
+    }
+
+    private static String readField(Field field, Object target) {
+        try {
+            field.setAccessible(true);
+            return (String) field.get(target);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+        }
+    }
+}
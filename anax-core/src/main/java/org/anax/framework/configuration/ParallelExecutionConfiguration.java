@@ -0,0 +1,45 @@
+package org.anax.framework.configuration;
+
+import org.anax.framework.controllers.VoidController;
+import org.anax.framework.controllers.WebController;
+import org.anax.framework.controllers.WebControllerFactory;
+import org.anax.framework.controllers.WebControllerPool;
+import org.anax.framework.controllers.WebDriverWebController;
+import org.openqa.selenium.WebDriver;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuration for the in-process parallel execution of Tests, enabled with anax.parallel.threads greater than 0.
+ */
+@Configuration
+public class ParallelExecutionConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    WebControllerFactory webControllerFactory() {
+        return (anaxDriver, defaultWaitSeconds) -> {
+            WebDriver driver = anaxDriver.getWebDriver();
+            return driver == null ? new VoidController() : new WebDriverWebController(driver, defaultWaitSeconds);
+        };
+    }
+
+    /**
+     * Replaces the WebController bean with a routing controller, so that page objects and tests use the controller
+     * leased by the thread that executes them.
+     */
+    @Bean
+    @ConditionalOnExpression("${anax.parallel.threads:0} > 0")
+    static BeanPostProcessor routingWebControllerPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                return bean instanceof WebController ? WebControllerPool.routing((WebController) bean) : bean;
+            }
+        };
+    }
+}
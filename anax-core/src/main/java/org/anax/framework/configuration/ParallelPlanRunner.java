@@ -1,19 +1,146 @@
 package org.anax.framework.configuration;
 
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.anax.framework.model.Suite;
 import org.anax.framework.model.Test;
 
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Executes a single {@link Test} of a {@link Suite} in a child JVM. The child is the same application, started with
+ * the same JVM options and program arguments, restricted via properties to the given suite and test bean and with its
+ * reports written in a dedicated shard directory. The parent collects the exit code and the shard reports.
+ */
+@Slf4j
+@Getter
 public class ParallelPlanRunner {
 
+    /** property passed to the child process in order to select a single Test bean by name */
+    public static final String EXEC_TEST_PROPERTY = "anax.exec.test";
+
+    /** the console output of the child process, stored in the shard directory */
+    public static final String CONSOLE_LOG = "console.log";
+
+    private static final String PARALLEL_OPTION = "-Dparallel=";
+
     private final Suite suite;
     private final Test test;
+    private final File shardDirectory;
+    private final List<String> arguments;
 
-    public ParallelPlanRunner(Suite suite, Test test) {
+    private int exitCode = -1;
+
+    public ParallelPlanRunner(Suite suite, Test test, File shardDirectory, String... arguments) {
         this.suite = suite;
         this.test = test;
+        this.shardDirectory = shardDirectory;
+        this.arguments = Arrays.asList(arguments);
+    }
+
+    /**
+     * Spawns the child process and blocks until it terminates
+     * @return the exit code of the child process, -1 if it could not be started or was interrupted
+     */
+    public int executeAndWait() {
+        if (!shardDirectory.exists()) {
+            shardDirectory.mkdirs();
+        }
+        final List<String> command = createCommand();
+        log.debug("Spawning process for test {}: {}", test.getTestBeanName(), command);
+
+        ProcessBuilder builder = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(new File(shardDirectory, CONSOLE_LOG));
+        Process process = null;
+        try {
+            long t0 = System.currentTimeMillis();
+            process = builder.start();
+            exitCode = process.waitFor();
+            log.info("Test {} of suite {} completed in {}s with exit code {}", test.getTestBeanName(), suite.getName(),
+                    (System.currentTimeMillis() - t0) / 1000, exitCode);
+        } catch (IOException ioe) {
+            log.error("Failed to spawn process for test {}: {}", test.getTestBeanName(), ioe.getMessage(), ioe);
+            exitCode = -1;
+        } catch (InterruptedException ie) {
+            log.error("Interrupted while waiting for test {}, killing the process", test.getTestBeanName());
+            process.destroyForcibly();
+            exitCode = -1;
+            Thread.currentThread().interrupt();
+        }
+        return exitCode;
+    }
+
+    /**
+     * Creates the command line of the child: same java binary, same JVM options (without a debugger agent that would
+     * clash on its port), same main class or jar and the same program arguments minus the parallel option.
+     * @return the command line
+     */
+    List<String> createCommand() {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(option -> !option.startsWith("-agentlib:jdwp") && !option.startsWith("-Xrunjdwp"))
+                .collect(Collectors.toList()));
+
+        final String main = mainClass();
+        final File jar = launchedJar(main);
+        if (jar != null) {
+            command.add("-jar");
+            command.add(jar.getPath());
+        } else {
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(main);
+        }
+
+        command.addAll(arguments.stream()
+                .filter(option -> !option.startsWith(PARALLEL_OPTION))
+                .collect(Collectors.toList()));
+        command.add("--anax.exec.suite=" + suite.getName());
+        command.add("--" + EXEC_TEST_PROPERTY + "=" + test.getTestBeanName());
+        command.add("--anax.report.directory=" + shardDirectory.getPath() + File.separator);
+        // shards share the result directories of the other reporters, never let a child clean them up
+        command.add("--anax.keepResults=true");
+        return command;
+    }
+
+    /** the class at the bottom of the main thread, or else the first word of the command line */
+    private static String mainClass() {
+        return Thread.getAllStackTraces().entrySet().stream()
+                .filter(it -> "main".equals(it.getKey().getName()) && it.getValue().length > 0)
+                .map(it -> it.getValue()[it.getValue().length - 1].getClassName())
+                .findFirst()
+                .orElseGet(() -> System.getProperty("sun.java.command", "").split(Pattern.quote(" "))[0]);
     }
 
-    public void executeAndWait() {
-        //TODO spawn new process, and pass suite and test as arguments.
+    /**
+     * The jar this JVM was started with, -jar, e.g. a Spring Boot jar whose launcher then starts the Start-Class
+     * @param main the main class
+     * @return the jar the main class is loaded from, if it is the whole class path, null otherwise
+     */
+    private static File launchedJar(String main) {
+        try {
+            CodeSource source = Class.forName(main).getProtectionDomain().getCodeSource();
+            if (source == null) {
+                return null;
+            }
+            File location = new File(source.getLocation().toURI()).getAbsoluteFile();
+            File classPath = new File(System.getProperty("java.class.path")).getAbsoluteFile();
+            return location.isFile() && location.equals(classPath) ? location : null;
+        } catch (ClassNotFoundException | URISyntaxException | IllegalArgumentException e) {
+            log.warn("Unable to locate the code source of {}, starting it from the class path: {}", main, e.getMessage());
+            return null;
+        }
     }
 }
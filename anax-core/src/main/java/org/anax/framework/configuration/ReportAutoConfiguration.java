@@ -4,6 +4,7 @@ package org.anax.framework.configuration;
 import org.anax.framework.controllers.WebController;
 import org.anax.framework.reporting.AnaxTestReporter;
 import org.anax.framework.reporting.DefaultJUnitReporter;
+import org.anax.framework.reporting.StreamingJUnitReporter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -19,7 +20,9 @@ public class ReportAutoConfiguration {
     @Bean
     @ConditionalOnMissingBean
     AnaxTestReporter anaxTestReporter(@Value("${anax.reports.screenshot.dir:reports/screenshots}") String reportScreenshotDir,
+            @Value("${anax.report.streaming:false}") boolean streaming,
             @Autowired Environment environment, @Autowired WebController controller) {
-        return new DefaultJUnitReporter(environment, controller, reportScreenshotDir);
+        return streaming ? new StreamingJUnitReporter(environment, controller, reportScreenshotDir)
+                : new DefaultJUnitReporter(environment, controller, reportScreenshotDir);
     }
 }
@@ -0,0 +1,36 @@
+package org.anax.framework.configuration;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuration of the browser session pool, enabled with anax.session.pool.size greater than 0. The AnaxDriver bean
+ * of the driver module is wrapped in a {@link WebDriverSessionPool} as soon as it is created, so that the sessions
+ * start while the rest of the context is still being wired.
+ */
+@Configuration
+public class SessionPoolConfiguration {
+
+    @Bean
+    @ConditionalOnExpression("${anax.session.pool.size:0} > 0")
+    static BeanPostProcessor sessionPoolPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (!(bean instanceof AnaxDriver) || bean instanceof WebDriverSessionPool) {
+                    return bean;
+                }
+                WebDriverSessionPool pool = new WebDriverSessionPool((AnaxDriver) bean,
+                        environment.getProperty("anax.session.pool.size", Integer.class, 1),
+                        environment.getProperty("anax.session.maxAgeMinutes", Long.class, 30L),
+                        environment.getProperty("anax.target.url", "http://www.google.com"));
+                pool.warmUp();
+                return pool;
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package org.anax.framework.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.controllers.AdaptiveWait;
+import org.anax.framework.controllers.MutationObserverWait;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Configures the polling of the controller waits: the first check is immediate, then the interval starts at
+ * anax.wait.initialPollMillis and is multiplied by anax.wait.backoffFactor up to anax.wait.maxPollMillis. With
+ * anax.wait.mode=observer, element (in)visibility waits are served by a MutationObserver in the page instead; a wait
+ * longer than the script timeout of the drivers, anax.wait.scriptTimeoutMillis, raises it for its duration only.
+ */
+@Configuration
+@Slf4j
+public class WaitConfiguration {
+
+    @Value("${anax.wait.initialPollMillis:25}") long initialPollMillis;
+    @Value("${anax.wait.maxPollMillis:500}") long maxPollMillis;
+    @Value("${anax.wait.backoffFactor:2}") double backoffFactor;
+    @Value("${anax.wait.mode:poll}") String waitMode;
+    @Value("${anax.wait.scriptTimeoutMillis:30000}") long scriptTimeoutMillis;
+
+    @PostConstruct
+    public void configureWaits() {
+        AdaptiveWait.setDefaults(new AdaptiveWait(initialPollMillis, maxPollMillis, backoffFactor));
+        MutationObserverWait.setEnabled("observer".equalsIgnoreCase(waitMode));
+        MutationObserverWait.setScriptTimeoutMillis(scriptTimeoutMillis);
+        log.debug("Waits poll from {}ms to {}ms, backoff factor {}, mode {}", initialPollMillis, maxPollMillis, backoffFactor, waitMode);
+    }
+}
@@ -0,0 +1,182 @@
+package org.anax.framework.configuration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+
+import java.util.Map;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link AnaxDriver} that keeps a number of browser sessions of the driver it wraps, the ones in use included; those
+ * not in use yet are started in the background. Sessions are handed out by {@link #getWebDriver()} and, between Tests,
+ * reset (windows, target url, cookies, storage) instead of being quit. Sessions that crash, or are older than the
+ * maximum age, are quit and replaced.
+ */
+@Slf4j
+public class WebDriverSessionPool implements AnaxDriver {
+
+    private static final String CLEAR_STORAGE = "try { window.localStorage.clear(); window.sessionStorage.clear(); } catch (e) { }";
+
+    private final AnaxDriver anaxDriver;
+    private final int size;
+    private final long maxAgeMillis;
+    private final String targetUrl;
+
+    private final ExecutorService starter;
+    private final BlockingDeque<Future<WebDriver>> ready = new LinkedBlockingDeque<>();
+    private final Map<WebDriver, Long> startTimes = new ConcurrentHashMap<>();
+
+    /**
+     * @param anaxDriver the driver that starts the actual sessions
+     * @param size the number of sessions to keep, in use or started in the background
+     * @param maxAgeMinutes the age after which a session is quit instead of reused
+     * @param targetUrl the url every session is reset to
+     */
+    public WebDriverSessionPool(AnaxDriver anaxDriver, int size, long maxAgeMinutes, String targetUrl) {
+        this.anaxDriver = anaxDriver;
+        this.size = size;
+        this.maxAgeMillis = TimeUnit.MINUTES.toMillis(maxAgeMinutes);
+        this.targetUrl = targetUrl;
+        this.starter = Executors.newFixedThreadPool(size, runnable -> {
+            Thread thread = new Thread(runnable, "anax-session-starter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts the sessions of the pool in the background
+     */
+    public void warmUp() {
+        log.info("Starting {} browser sessions in the background", size);
+        for (int i = 0; i < size; i++) {
+            ready.offer(starter.submit(this::start));
+        }
+    }
+
+    /**
+     * Hands out a session; the pool does not start another one in its place, it is reused through
+     * {@link #recycle(WebDriver)}
+     * @return a started, healthy session - one started in the background if available, otherwise a newly started one
+     * @throws Exception if a session cannot be started
+     */
+    @Override
+    public WebDriver getWebDriver() throws Exception {
+        Future<WebDriver> spare;
+        while ((spare = ready.poll()) != null) {
+            try {
+                WebDriver driver = spare.get();
+                if (isUsable(driver)) {
+                    return driver;
+                }
+                evict(driver);
+            } catch (Exception e) {
+                log.warn("Background session failed to start: {}", e.getMessage());
+            }
+        }
+        return start();
+    }
+
+    /**
+     * Prepares a session for the next Test: resets it, or replaces it if it has crashed or reached its maximum age.
+     * @param driver the session used by the previous Test
+     * @return the session to use for the next Test
+     * @throws Exception if a replacement session cannot be started
+     */
+    public WebDriver recycle(WebDriver driver) throws Exception {
+        if (isUsable(driver) && reset(driver)) {
+            return driver;
+        }
+        evict(driver);
+        return getWebDriver();
+    }
+
+    /**
+     * Quit all the spare sessions; sessions handed out are quit by their controllers
+     */
+    public void shutdown() {
+        starter.shutdownNow();
+        Future<WebDriver> spare;
+        while ((spare = ready.poll()) != null) {
+            if (spare.isDone()) {
+                try {
+                    evict(spare.get());
+                } catch (Exception e) {
+                    // never started
+                }
+            }
+        }
+    }
+
+    private WebDriver start() throws Exception {
+        long t0 = System.currentTimeMillis();
+        WebDriver driver = anaxDriver.getWebDriver();
+        if (driver != null) {
+            startTimes.put(driver, System.currentTimeMillis());
+            log.debug("Browser session started in {}ms", System.currentTimeMillis() - t0);
+        }
+        return driver;
+    }
+
+    private boolean isUsable(WebDriver driver) {
+        if (driver == null) {
+            return false;
+        }
+        Long started = startTimes.get(driver);
+        if (started != null && System.currentTimeMillis() - started > maxAgeMillis) {
+            log.info("Browser session reached its maximum age, replacing it");
+            return false;
+        }
+        try {
+            driver.getWindowHandles();
+            return true;
+        } catch (Exception e) {
+            log.warn("Browser session is not responding, replacing it: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean reset(WebDriver driver) {
+        try {
+            String first = null;
+            for (String handle : driver.getWindowHandles()) {
+                if (first == null) {
+                    first = handle;
+                } else {
+                    driver.switchTo().window(handle).close();
+                }
+            }
+            driver.switchTo().window(first);
+            // cookies and storage are cleared for the origin of the current page, that of the target url
+            driver.get(targetUrl);
+            driver.manage().deleteAllCookies();
+            if (driver instanceof JavascriptExecutor) {
+                ((JavascriptExecutor) driver).executeScript(CLEAR_STORAGE);
+            }
+            driver.navigate().refresh();
+            return true;
+        } catch (Exception e) {
+            log.warn("Failed to reset browser session: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void evict(WebDriver driver) {
+        if (driver == null) {
+            return;
+        }
+        startTimes.remove(driver);
+        try {
+            driver.quit();
+        } catch (Exception e) {
+            log.debug("Failed to quit browser session: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package org.anax.framework.controllers;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.NotFoundException;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriverException;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A wait that checks its condition immediately and then polls with an interval that grows from initialPollMillis by
+ * backoffFactor up to maxPollMillis. Every wait is logged with the number of polls and the time it took, and added to
+ * the totals reported by {@link #statistics()}.
+ */
+@Slf4j
+@Getter
+public class AdaptiveWait {
+
+    private static volatile AdaptiveWait defaults = new AdaptiveWait(25, 500, 2);
+
+    private static final AtomicLong totalWaits = new AtomicLong();
+    private static final AtomicLong totalPolls = new AtomicLong();
+    private static final AtomicLong totalMillis = new AtomicLong();
+    private static final AtomicLong totalTimeouts = new AtomicLong();
+
+    private final long initialPollMillis;
+    private final long maxPollMillis;
+    private final double backoffFactor;
+
+    public AdaptiveWait(long initialPollMillis, long maxPollMillis, double backoffFactor) {
+        this.initialPollMillis = Math.max(1, initialPollMillis);
+        this.maxPollMillis = Math.max(this.initialPollMillis, maxPollMillis);
+        this.backoffFactor = Math.max(1, backoffFactor);
+    }
+
+    /**
+     * @return the wait used by the controllers
+     */
+    public static AdaptiveWait defaults() {
+        return defaults;
+    }
+
+    /**
+     * @param wait the wait to be used by the controllers
+     */
+    public static void setDefaults(AdaptiveWait wait) {
+        defaults = wait;
+    }
+
+    /**
+     * Waits until the condition returns a value other than null or false. Element lookups that fail with
+     * {@link NotFoundException} or {@link StaleElementReferenceException} are retried.
+     * @param description what is waited for, used in the log and the timeout message
+     * @param timeoutMillis the maximum time to wait
+     * @param condition the condition
+     * @param <T> the type of the condition value
+     * @return the value of the condition
+     * @throws TimeoutException if the condition is not met within the timeout
+     */
+    public <T> T until(String description, long timeoutMillis, Supplier<T> condition) {
+        final long t0 = System.currentTimeMillis();
+        final long deadline = t0 + timeoutMillis;
+        long interval = initialPollMillis;
+        int polls = 0;
+        RuntimeException lastException = null;
+        while (true) {
+            polls++;
+            try {
+                T value = condition.get();
+                if (value != null && !Boolean.FALSE.equals(value)) {
+                    record(description, polls, t0, false);
+                    return value;
+                }
+            } catch (NotFoundException | StaleElementReferenceException e) {
+                lastException = e;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                long elapsed = record(description, polls, t0, true);
+                throw new TimeoutException("Timed out after " + elapsed + "ms (" + polls + " polls) waiting for " + description, lastException);
+            }
+            try {
+                Thread.sleep(Math.min(interval, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WebDriverException("Interrupted while waiting for " + description, e);
+            }
+            interval = Math.min(maxPollMillis, (long) (interval * backoffFactor));
+        }
+    }
+
+    /**
+     * @return the totals of all the waits so far
+     */
+    public static String statistics() {
+        return String.format("%d waits, %d polls, %dms waited, %d timeouts",
+                totalWaits.get(), totalPolls.get(), totalMillis.get(), totalTimeouts.get());
+    }
+
+    private static long record(String description, int polls, long t0, boolean timedOut) {
+        long elapsed = System.currentTimeMillis() - t0;
+        totalWaits.incrementAndGet();
+        totalPolls.addAndGet(polls);
+        totalMillis.addAndGet(elapsed);
+        if (timedOut) {
+            totalTimeouts.incrementAndGet();
+        }
+        log.debug("Wait for {} {} after {} polls in {}ms", description, timedOut ? "timed out" : "completed", polls, elapsed);
+        return elapsed;
+    }
+}
@@ -454,6 +454,11 @@ public class AppiumDriverWebController implements WebController{
         return new String[0][];
     }
 
+    @Override
+    public TableSnapshot getTableSnapshot(String locator, String... attributes) {
+        return null;
+    }
+
     @Override
     public String getTableElementSpecificHeaderLocator(String locator, String elementName, String headerName) {
         return null;
@@ -5,8 +5,12 @@ import org.openqa.selenium.*;
 import org.openqa.selenium.internal.FindsByCssSelector;
 import org.openqa.selenium.internal.FindsByXPath;
 import org.openqa.selenium.remote.RemoteWebElement;
+import org.springframework.util.StreamUtils;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -51,17 +55,20 @@ public abstract class ByExtended extends By {
 
     public static class ByCssSelectorExtended extends ByCssSelector {
 
-        private static final String HTTPS = "https://";
+        private static final String SIZZLE_RESOURCE = "sizzle.min.js";
 
-        private static final String HTTP = "http://";
+        private static final String NO_SIZZLE = "anax:no-sizzle";
+
+        /** a single round trip when Sizzle is already in the document, else returns the NO_SIZZLE marker */
+        private static final String SIZZLE_LOOKUP = "if (!window.Sizzle) { return '" + NO_SIZZLE + "'; } return window.Sizzle(arguments[0]);";
+
+        private static volatile String sizzleSource;
 
         /**
          * uid
          */
         private static final long serialVersionUID = 1L;
 
-        private static final String DEFAULT_SIZZLE_URL = "http://cdnjs.cloudflare.com/ajax/libs/sizzle/2.3.3/sizzle.min.js";
-
         private String ownSelector;
         private WebDriver driver;
 
@@ -176,9 +183,7 @@ public abstract class ByExtended extends By {
          * @return the list of the web elements that match this locator
          */
         public List<WebElement> findElementsBySizzleCss(SearchContext context, String cssLocator) {
-            injectSizzleIfNeeded();
-            String javascriptExpression = createSizzleSelectorExpression(cssLocator);
-            List<WebElement> elements = executeRemoteScript(javascriptExpression);
+            List<WebElement> elements = executeRemoteScript(cssLocator);
             if (elements.size() > 0) {
                 for (WebElement el : elements) {
                     fixLocator(context, cssLocator, el);
@@ -188,81 +193,39 @@ public abstract class ByExtended extends By {
         }
 
         @SuppressWarnings("unchecked")
-        private final List<WebElement> executeRemoteScript(String javascriptExpression) {
-            List<WebElement> list = null;
+        private final List<WebElement> executeRemoteScript(String cssLocator) {
             JavascriptExecutor executor = (JavascriptExecutor) driver;
-
-            try {
-                list = (List<WebElement>) executor
-                        .executeScript(javascriptExpression);
-            } catch (WebDriverException wde) {
-                if (wde.getMessage().contains("Sizzle is not defined")) {
-                    log.error("Attempt to execute the code '"+javascriptExpression+"' has failed - Sizzle was not detected. Trying once more");
-                    // we wait for 1/2 sec
-                    try { Thread.sleep(500); } catch (InterruptedException e) { }
-                    // try to inject sizzle once more.
-                    injectSizzleIfNeeded();
-                    // now, try again to execute
-                    list = (List<WebElement>) executor
-                            .executeScript(javascriptExpression);
-                } else { // not a Sizzle case, just throw it
-                    throw wde;
-                }
-            } finally {
-                if (list == null) {
-                    list = Collections.emptyList();
-                }
+            // window.Sizzle is the marker of the current document: a new page load starts without it
+            Object result = executor.executeScript(SIZZLE_LOOKUP, cssLocator);
+            if (NO_SIZZLE.equals(result)) {
+                log.debug("Injecting Sizzle in {}", driver.getCurrentUrl());
+                result = executor.executeScript(getSizzleSource() + SIZZLE_LOOKUP, cssLocator);
             }
-            return list;
+            return result instanceof List ? (List<WebElement>) result : Collections.<WebElement>emptyList();
         }
 
         /**
-         * Creates the sizzle selector expression.
-         *
-         * @param cssLocator
-         *            the cssLocator
-         * @return string that represents the sizzle selector expression.
+         * The bundled build is the upstream one, which defines an AMD or CommonJS module when the page has a loader and
+         * sets window.Sizzle otherwise: it is run as a CommonJS module of its own, whatever the page has, and exported
+         * to window.Sizzle here.
+         * @return the script that loads the Sizzle bundled in the classpath into window.Sizzle
          */
-        private String createSizzleSelectorExpression(String cssLocator) {
-            return "return Sizzle(\"" + cssLocator + "\")";
-        }
-
-        /**
-         * Inject sizzle if needed.
-         */
-        private void injectSizzleIfNeeded() {
-            if (!sizzleLoaded()) {
-                injectSizzle();
-            } else {
-                return; // sizzle is ready
-            }
-
-            for (int i = 0; i<40; i++ ) {
-                if(sizzleLoaded() ) {
-                    return; // sizzle is loaded
-                }
-                try {
-                    Thread.sleep(500);
-                } catch (InterruptedException e) {
-                    // FIX: nothing to print here
-                }
-                if (i % 10 == 0) {
-                    log.error("Attempting to re-load SizzleCSS from {}",getSizzleUrl());
-                    injectSizzle();
+        private static String getSizzleSource() {
+            String source = sizzleSource;
+            if (source == null) {
+                try (InputStream in = ByExtended.class.getResourceAsStream(SIZZLE_RESOURCE)) {
+                    if (in == null) {
+                        throw new IllegalStateException("Sizzle resource " + SIZZLE_RESOURCE + " not found in the classpath");
+                    }
+                    source = "window.Sizzle = (function (define, module) {\n"
+                            + StreamUtils.copyToString(in, StandardCharsets.UTF_8)
+                            + ";\nreturn module.exports;\n})(undefined, { exports: {} });\n";
+                    sizzleSource = source;
+                } catch (IOException e) {
+                    throw new IllegalStateException("Unable to read Sizzle resource " + SIZZLE_RESOURCE, e);
                 }
             }
-
-            //Try on last time
-            if (!sizzleLoaded()) {
-                log.error("After so many tries, sizzle does not appear in DOM");
-            }
-            // sizzle is not loaded yet
-            throw new RuntimeException("Sizzle loading from ("+ getSizzleUrl() +") has failed - " +
-                    "provide a better sizzle URL via -DsizzleUrl");
-        }
-
-        private String getSizzleUrl() {
-            return System.getProperty("sizzleUrl",DEFAULT_SIZZLE_URL );
+            return source;
         }
 
         /**
@@ -284,29 +247,10 @@ public abstract class ByExtended extends By {
         }
 
         /**
-         * Inject sizzle 1.8.2
+         * Inject the bundled Sizzle in the current document, inline
          */
         public void injectSizzle() {
-            String sizzleUrl = getSizzleUrl();
-            if (sizzleUrl.startsWith(HTTP)) {
-                sizzleUrl = sizzleUrl.substring(HTTP.length());
-            } else if  (sizzleUrl.startsWith(HTTPS)) {
-                sizzleUrl = sizzleUrl.substring(HTTPS.length());
-            }
-
-            StringBuilder script = new StringBuilder()
-                    .append(" var bodyTag = document.getElementsByTagName('body')[0];")
-                    .append("if (bodyTag) {")
-                    .append("  var sizzl = document.createElement('script');")
-                    .append("  sizzl.type = 'text/javascript';")
-                    .append("  sizzl.src = document.location.protocol + '//").append(sizzleUrl).append("';")
-                    .append("  bodyTag.appendChild(sizzl);")
-                    .append("} else if (window.jQuery) { ")
-                    .append("	 $.getScript(document.location.protocol + '//").append(sizzleUrl).append("');")
-                    .append("}");
-            final String stringified = script.toString();
-            log.debug("Executing injection script: {}",stringified);
-            ((JavascriptExecutor) driver).executeScript(stringified);
+            ((JavascriptExecutor) driver).executeScript(getSizzleSource());
         }
         /**
          * ******************** SIZZLE SUPPORT CODE
@@ -0,0 +1,163 @@
+package org.anax.framework.controllers;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.openqa.selenium.By;
+import org.openqa.selenium.WebDriver;
+
+import javax.xml.xpath.XPathExpressionException;
+import javax.xml.xpath.XPathFactory;
+import java.text.MessageFormat;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A parsed locator string: the strategy (xpath, css, name, link or id) and its value. Parsed locators are immutable
+ * and cached in a bounded, least recently used cache, so the same string is parsed once per run.
+ */
+@Getter
+@EqualsAndHashCode
+public final class Locator {
+
+    public static final String XPATH = "xpath";
+    public static final String CSS = "css";
+    public static final String NAME = "name";
+    public static final String LINK = "link";
+    public static final String ID = "id";
+
+    private static final int CACHE_SIZE = 1024;
+
+    private static final Map<String, Locator> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, Locator>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Locator> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private final String strategy;
+    private final String value;
+
+    private Locator(String strategy, String value) {
+        this.strategy = strategy;
+        this.value = value;
+    }
+
+    /**
+     * Parse a locator string: xpath=..., //..., css=..., name=..., link=..., id=..., anything else is an id.
+     * @param locator the locator string
+     * @return the parsed, possibly cached, locator
+     */
+    public static Locator parse(String locator) {
+        Locator parsed = cache.get(locator);
+        if (parsed == null) {
+            parsed = doParse(locator);
+            cache.put(locator, parsed);
+        }
+        return parsed;
+    }
+
+    private static Locator doParse(String locator) {
+        if (locator.startsWith(XPATH)) {
+            return new Locator(XPATH, valueOf(locator));
+        } else if (locator.startsWith("//")) {
+            return new Locator(XPATH, locator);
+        } else if (locator.startsWith(CSS)) {
+            return new Locator(CSS, valueOf(locator));
+        } else if (locator.startsWith(NAME)) {
+            return new Locator(NAME, valueOf(locator));
+        } else if (locator.startsWith(LINK)) {
+            return new Locator(LINK, valueOf(locator));
+        } else if (locator.startsWith(ID)) {
+            return new Locator(ID, valueOf(locator));
+        } else {
+            return new Locator(ID, locator);
+        }
+    }
+
+    private static String valueOf(String locator) {
+        return locator.substring(locator.indexOf('=') + 1);
+    }
+
+    /**
+     * @param driver the driver, needed by css locators for the Sizzle fallback
+     * @return a new By for this locator
+     */
+    public By toBy(WebDriver driver) {
+        switch (strategy) {
+            case XPATH:
+                return By.xpath(value);
+            case CSS:
+                return ByExtended.cssSelector(value, driver);
+            case NAME:
+                return By.name(value);
+            case LINK:
+                return By.linkText(value);
+            default:
+                return By.id(value);
+        }
+    }
+
+    /**
+     * Checks that a locator string, or a MessageFormat template of one, is well formed and caches its parsed form.
+     * Xpath expressions are compiled, css selectors are checked for balanced brackets and quotes.
+     * @param locator the locator string or template
+     * @throws IllegalArgumentException if the locator is malformed
+     */
+    public static void precompile(String locator) {
+        String concrete = locator;
+        if (locator.indexOf('{') >= 0) {
+            try {
+                concrete = MessageFormat.format(locator, "0", "0", "0", "0", "0", "0", "0", "0", "0", "0");
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Malformed locator template '" + locator + "': " + e.getMessage(), e);
+            }
+        } else {
+            parse(locator);
+        }
+        Locator parsed = doParse(concrete);
+        if (parsed.value.trim().isEmpty()) {
+            throw new IllegalArgumentException("Empty locator '" + locator + "'");
+        }
+        if (XPATH.equals(parsed.strategy)) {
+            try {
+                XPathFactory.newInstance().newXPath().compile(parsed.value);
+            } catch (XPathExpressionException e) {
+                throw new IllegalArgumentException("Malformed xpath locator '" + locator + "': " + e.getMessage(), e);
+            }
+        } else if (CSS.equals(parsed.strategy) && !isBalanced(parsed.value)) {
+            throw new IllegalArgumentException("Malformed css locator '" + locator + "': unbalanced brackets or quotes");
+        }
+    }
+
+    private static boolean isBalanced(String selector) {
+        StringBuilder open = new StringBuilder();
+        char quote = 0;
+        for (int i = 0; i < selector.length(); i++) {
+            char c = selector.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == '[' || c == '(') {
+                open.append(c);
+            } else if (c == ']' || c == ')') {
+                if (open.length() == 0 || open.charAt(open.length() - 1) != (c == ']' ? '[' : '(')) {
+                    return false;
+                }
+                open.setLength(open.length() - 1);
+            }
+        }
+        return quote == 0 && open.length() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return strategy + "=" + value;
+    }
+}
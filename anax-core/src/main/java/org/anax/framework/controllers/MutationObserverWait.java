@@ -0,0 +1,143 @@
+package org.anax.framework.controllers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.TimeoutException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits for the visibility or invisibility of an element with a single asynchronous script: the script installs a
+ * MutationObserver in the page and returns as soon as the locator resolves to a visible element (or stops doing so),
+ * instead of the locator being polled over the wire. Enabled with anax.wait.mode=observer.
+ * <p>
+ * Waits this script cannot serve (a selector the browser does not support natively, a page unloading during the
+ * wait) return null and the caller falls back to polling.
+ * <p>
+ * The script must complete within the script timeout of the driver. A wait that would outlast it raises it for its
+ * duration, and restores it after: Selenium cannot read the timeout, so it is restored to the one configured, 30
+ * seconds by default, the driver default.
+ */
+@Slf4j
+public class MutationObserverWait {
+
+    private static volatile boolean enabled = false;
+
+    /** the script timeout of the drivers, as configured */
+    private static volatile long scriptTimeoutMillis = 30000;
+
+    private static final String SCRIPT =
+            "var strategy = arguments[0], value = arguments[1], visible = arguments[2], timeout = arguments[3];" +
+            "var done = arguments[arguments.length - 1];" +
+            "function find() {" +
+            "  switch (strategy) {" +
+            "    case 'xpath': return document.evaluate(value, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue;" +
+            "    case 'css': return document.querySelector(value);" +
+            "    case 'name': return document.getElementsByName(value)[0] || null;" +
+            "    case 'link': var links = document.getElementsByTagName('a');" +
+            "      for (var i = 0; i < links.length; i++) { if (links[i].textContent.trim() === value) { return links[i]; } }" +
+            "      return null;" +
+            "    default: return document.getElementById(value);" +
+            "  }" +
+            "}" +
+            "function isVisible(e) {" +
+            "  if (!e) { return false; }" +
+            "  var style = window.getComputedStyle(e);" +
+            "  return style.visibility !== 'hidden' && style.display !== 'none' && e.getClientRects().length > 0;" +
+            "}" +
+            "function check() { var e = find(); return visible ? (isVisible(e) ? e : null) : (isVisible(e) ? null : true); }" +
+            "var finished = false, observer = null;" +
+            "function finish(result) {" +
+            "  if (!finished) { finished = true; if (observer) { observer.disconnect(); } done(result); }" +
+            "}" +
+            "function evaluate() { try { var r = check(); if (r) { finish(r); } } catch (err) { finish({error: String(err)}); } }" +
+            "evaluate();" +
+            "if (!finished) {" +
+            "  observer = new MutationObserver(evaluate);" +
+            "  observer.observe(document.documentElement, {childList: true, subtree: true, attributes: true, characterData: true});" +
+            "  setTimeout(function() { evaluate(); finish(null); }, timeout);" +
+            "}";
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static void setEnabled(boolean enabled) {
+        MutationObserverWait.enabled = enabled;
+    }
+
+    public static void setScriptTimeoutMillis(long scriptTimeoutMillis) {
+        MutationObserverWait.scriptTimeoutMillis = scriptTimeoutMillis;
+    }
+
+    /**
+     * @param driver the driver
+     * @param strategy one of xpath, css, name, link, id
+     * @param value the locator value
+     * @param timeoutMillis the maximum time to wait
+     * @return the visible element, null if the wait could not be performed in the page
+     * @throws TimeoutException if no visible element appears within the timeout
+     */
+    public static WebElement waitForVisibility(WebDriver driver, String strategy, String value, long timeoutMillis) {
+        Object result = execute(driver, strategy, value, true, timeoutMillis);
+        return result instanceof WebElement ? (WebElement) result : null;
+    }
+
+    /**
+     * @param driver the driver
+     * @param strategy one of xpath, css, name, link, id
+     * @param value the locator value
+     * @param timeoutMillis the maximum time to wait
+     * @return true when no visible element remains, false if the wait could not be performed in the page
+     * @throws TimeoutException if a visible element remains after the timeout
+     */
+    public static boolean waitForInvisibility(WebDriver driver, String strategy, String value, long timeoutMillis) {
+        return Boolean.TRUE.equals(execute(driver, strategy, value, false, timeoutMillis));
+    }
+
+    private static Object execute(WebDriver driver, String strategy, String value, boolean visible, long timeoutMillis) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return null;
+        }
+        final String description = (visible ? "visibility of " : "invisibility of ") + strategy + "=" + value;
+        final long t0 = System.currentTimeMillis();
+        final long required = timeoutMillis + 5000; // the script reports its own timeout, leave room for the round trip
+        final boolean raised = required > scriptTimeoutMillis;
+        Object result;
+        try {
+            if (raised) {
+                driver.manage().timeouts().setScriptTimeout(required, TimeUnit.MILLISECONDS);
+            }
+            result = ((JavascriptExecutor) driver).executeAsyncScript(SCRIPT, strategy, value, visible, timeoutMillis);
+        } catch (WebDriverException e) {
+            log.debug("Observer wait for {} failed, falling back to polling: {}", description, e.getMessage());
+            return null;
+        } finally {
+            if (raised) {
+                restoreScriptTimeout(driver);
+            }
+        }
+        if (result instanceof Map) {
+            log.debug("Observer wait for {} is not supported in the page, falling back to polling: {}", description, ((Map) result).get("error"));
+            return null;
+        }
+        long elapsed = System.currentTimeMillis() - t0;
+        if (result == null) {
+            throw new TimeoutException("Timed out after " + elapsed + "ms (observer) waiting for " + description);
+        }
+        log.debug("Observer wait for {} completed in {}ms", description, elapsed);
+        return result;
+    }
+
+    private static void restoreScriptTimeout(WebDriver driver) {
+        try {
+            driver.manage().timeouts().setScriptTimeout(scriptTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (WebDriverException e) {
+            log.warn("Unable to restore the script timeout to {}ms: {}", scriptTimeoutMillis, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.anax.framework.controllers;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.Callable;
+
+/**
+ * Serializes the calls made on a {@link WebController} from several threads. The web drivers are not thread safe: a
+ * background thread, e.g. the one of a browser recording, that uses the controller of a Test must do so between the
+ * commands of the Test, not in the middle of one.
+ */
+public class SerializedWebController {
+
+    /**
+     * Creates a controller that makes every call on the given one while holding its lock, see
+     * {@link #between(WebController, Callable)}
+     * @param controller the controller of the Tests
+     * @return the serialized controller
+     */
+    public static WebController serialized(WebController controller) {
+        return (WebController) Proxy.newProxyInstance(WebController.class.getClassLoader(), new Class<?>[]{WebController.class},
+                new Serializer(controller));
+    }
+
+    /**
+     * @param controller a controller, serialized or not
+     * @return the controller a serialized controller makes its calls on, the given one otherwise
+     */
+    public static WebController target(WebController controller) {
+        if (Proxy.isProxyClass(controller.getClass()) && Proxy.getInvocationHandler(controller) instanceof Serializer) {
+            return ((Serializer) Proxy.getInvocationHandler(controller)).controller;
+        }
+        return controller;
+    }
+
+    /**
+     * Makes calls on a serialized controller, with no command of another thread in between
+     * @param controller the serialized controller
+     * @param calls the calls to make
+     * @param <T> the result of the calls
+     * @return the result of the calls
+     * @throws Exception if the calls fail
+     */
+    public static <T> T between(WebController controller, Callable<T> calls) throws Exception {
+        synchronized (controller) {
+            return calls.call();
+        }
+    }
+
+    private static class Serializer implements InvocationHandler {
+
+        private final WebController controller;
+
+        Serializer(WebController controller) {
+            this.controller = controller;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            synchronized (proxy) {
+                try {
+                    return method.invoke(controller, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package org.anax.framework.controllers;
+
+import lombok.Getter;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebElement;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * An immutable snapshot of an HTML table, captured with a single script execution: the text of every header (th) and,
+ * for every row (tr), the text and optionally some attributes of its cells. The table methods of the controller and
+ * the table assertions of Verify query the snapshot locally instead of making one remote call per cell.
+ * <p>
+ * Positions are 1-based, as in the css nth-child selectors the table methods used to build.
+ */
+@Getter
+public final class TableSnapshot {
+
+    private static final String CAPTURE_SCRIPT =
+            "var table = arguments[0], attributes = arguments[1] || [];" +
+            "function text(e) { return (e.innerText || e.textContent || '').replace(/\\u00a0/g, ' ').trim(); }" +
+            "var headers = [], rows = [];" +
+            "var ths = table.querySelectorAll('th');" +
+            "for (var i = 0; i < ths.length; i++) { headers.push(text(ths[i])); }" +
+            "var trs = table.querySelectorAll('tr');" +
+            "for (var r = 0; r < trs.length; r++) {" +
+            "  var tr = trs[r], position = 1, sibling = tr.previousElementSibling;" +
+            "  while (sibling) { position++; sibling = sibling.previousElementSibling; }" +
+            "  var cells = [];" +
+            "  for (var c = 0; c < tr.children.length; c++) {" +
+            "    var cell = tr.children[c], tag = cell.tagName.toUpperCase();" +
+            "    if (tag !== 'TD' && tag !== 'TH') { continue; }" +
+            "    var values = {};" +
+            "    for (var a = 0; a < attributes.length; a++) { values[attributes[a]] = cell.getAttribute(attributes[a]); }" +
+            "    cells.push({h: tag === 'TH', t: text(cell), a: values});" +
+            "  }" +
+            "  rows.push({b: tr.parentNode.tagName.toUpperCase() === 'TBODY', p: position, c: cells});" +
+            "}" +
+            "return {h: headers, r: rows};";
+
+    /** the text of every th of the table, in document order */
+    private final List<String> headers;
+    /** every tr of the table, in document order */
+    private final List<Row> rows;
+    /** the rows in a tbody, in document order */
+    private final List<Row> bodyRows;
+
+    private TableSnapshot(List<String> headers, List<Row> rows) {
+        this.headers = Collections.unmodifiableList(headers);
+        this.rows = Collections.unmodifiableList(rows);
+        this.bodyRows = Collections.unmodifiableList(rows.stream().filter(Row::isBody).collect(Collectors.toList()));
+    }
+
+    /**
+     * Capture a table in one script execution
+     * @param executor the driver
+     * @param table the table element
+     * @param attributes the cell attributes to capture, if any
+     * @return the snapshot
+     */
+    @SuppressWarnings("unchecked")
+    public static TableSnapshot capture(JavascriptExecutor executor, WebElement table, String... attributes) {
+        Map<String, Object> result = (Map<String, Object>) executor.executeScript(CAPTURE_SCRIPT, table, Arrays.asList(attributes));
+        List<String> headers = new ArrayList<>();
+        for (Object header : (List<Object>) result.get("h")) {
+            headers.add(String.valueOf(header));
+        }
+        List<Row> rows = new ArrayList<>();
+        for (Object row : (List<Object>) result.get("r")) {
+            Map<String, Object> rowMap = (Map<String, Object>) row;
+            List<Cell> cells = new ArrayList<>();
+            for (Object cell : (List<Object>) rowMap.get("c")) {
+                Map<String, Object> cellMap = (Map<String, Object>) cell;
+                Map<String, String> values = new HashMap<>();
+                ((Map<String, Object>) cellMap.get("a")).forEach((name, value) -> values.put(name, value == null ? null : String.valueOf(value)));
+                cells.add(new Cell(Boolean.TRUE.equals(cellMap.get("h")), String.valueOf(cellMap.get("t")), values));
+            }
+            rows.add(new Row(Boolean.TRUE.equals(rowMap.get("b")), ((Number) rowMap.get("p")).intValue(), cells));
+        }
+        return new TableSnapshot(headers, rows);
+    }
+
+    /**
+     * @param headerName the header text
+     * @return the position of the header among the th of the table, 0 if not found
+     */
+    public int getHeaderPosition(String headerName) {
+        return headers.indexOf(headerName) + 1;
+    }
+
+    /**
+     * @param text the cell text
+     * @return the position, among the body rows, of the first row with a td of that text, 0 if not found
+     */
+    public int getRowPosition(String text) {
+        for (int i = 0; i < bodyRows.size(); i++) {
+            if (bodyRows.get(i).getData().contains(text)) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param text the cell text
+     * @return the position, among the td of its row, of the first td of that text in the body rows, 0 if not found
+     */
+    public int getColumnPosition(String text) {
+        for (Row row : bodyRows) {
+            int position = row.getData().indexOf(text);
+            if (position >= 0) {
+                return position + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param rows the rows to search, in document order
+     * @param row the position of the row in its section (tr:nth-child)
+     * @param column the position of the cell in its row (td:nth-child)
+     * @return the first td at this position, null if none
+     */
+    public static Cell findDataCell(List<Row> rows, int row, int column) {
+        for (Row candidate : rows) {
+            if (candidate.getPosition() == row) {
+                Cell cell = candidate.getCell(column);
+                if (cell != null && !cell.isHeader()) {
+                    return cell;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param column the position of the cell in its row (th:nth-child or td:nth-child)
+     * @return the text of the cells at this position in every body row, null for rows without such a cell
+     */
+    public List<String> getColumn(int column) {
+        return bodyRows.stream().map(row -> row.getCell(column)).map(cell -> cell == null ? null : cell.getText())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * @return the text of the td of every body row
+     */
+    public List<List<String>> getBodyData() {
+        return bodyRows.stream().map(Row::getData).collect(Collectors.toList());
+    }
+
+    @Getter
+    public static final class Row {
+        /** whether the row is in a tbody */
+        private final boolean body;
+        /** the position of the row among its siblings (nth-child) */
+        private final int position;
+        /** the th and td of the row */
+        private final List<Cell> cells;
+        /** the text of the td of the row */
+        private final List<String> data;
+
+        Row(boolean body, int position, List<Cell> cells) {
+            this.body = body;
+            this.position = position;
+            this.cells = Collections.unmodifiableList(cells);
+            this.data = Collections.unmodifiableList(cells.stream().filter(cell -> !cell.isHeader()).map(Cell::getText).collect(Collectors.toList()));
+        }
+
+        /**
+         * @param position the position of the cell in the row, 1-based
+         * @return the cell, null if the row has fewer cells
+         */
+        public Cell getCell(int position) {
+            return position >= 1 && position <= cells.size() ? cells.get(position - 1) : null;
+        }
+    }
+
+    @Getter
+    public static final class Cell {
+        /** whether the cell is a th */
+        private final boolean header;
+        private final String text;
+        /** the requested attributes of the cell */
+        private final Map<String, String> attributes;
+
+        Cell(boolean header, String text, Map<String, String> attributes) {
+            this.header = header;
+            this.text = text;
+            this.attributes = Collections.unmodifiableMap(attributes);
+        }
+    }
+}
@@ -494,6 +494,11 @@ public class VoidController implements WebController {
         return null;
     }
 
+    @Override
+    public TableSnapshot getTableSnapshot(String locator, String... attributes) {
+        return null;
+    }
+
     @Override
     public String getTableElementSpecificHeaderLocator(String locator,
                                                        String elementName, String headerName) {
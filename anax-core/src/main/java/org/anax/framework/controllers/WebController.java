@@ -784,6 +784,15 @@ public interface WebController {
      */
     String[][] getTableElements2DArray(String locator);
 
+    /**
+     * Captures the headers, rows and cells of a table in a single call, to be queried locally.
+     *
+     * @param locator the table locator
+     * @param attributes the cell attributes to capture, if any
+     * @return the snapshot of the table
+     */
+    TableSnapshot getTableSnapshot(String locator, String... attributes);
+
     /**
      * Gets the table element locator, that exists under a specific table header.
      *
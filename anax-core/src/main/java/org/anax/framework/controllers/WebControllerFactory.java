@@ -4,8 +4,8 @@ package org.anax.framework.controllers;
 import org.anax.framework.configuration.AnaxDriver;
 
 /**
- * A WebControllerFactory is the factory that makes parallel testing possible.
- * Placeholder - to be used in future versions
+ * A WebControllerFactory is the factory that makes parallel testing possible: the {@link WebControllerPool} uses it
+ * to create one controller per parallel thread, each with its own driver.
  */
 public interface WebControllerFactory {
 
@@ -0,0 +1,121 @@
+package org.anax.framework.controllers;
+
+import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.configuration.AnaxDriver;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed size pool of {@link WebController}s, created on demand through a {@link WebControllerFactory}. A thread
+ * leases a controller for the duration of a Test; while leased, every call on a routing controller (see
+ * {@link #routing(WebController)}) made by that thread goes to its own controller.
+ */
+@Slf4j
+public class WebControllerPool {
+
+    private static final ThreadLocal<WebController> leased = new ThreadLocal<>();
+
+    private final WebControllerFactory factory;
+    private final AnaxDriver anaxDriver;
+    private final Integer defaultWaitSeconds;
+    private final int size;
+
+    private final BlockingQueue<WebController> idle = new LinkedBlockingQueue<>();
+    private final List<WebController> created = new CopyOnWriteArrayList<>();
+    /** the controllers that may still be created; a creation that fails gives its permit back */
+    private final Semaphore permits;
+
+    public WebControllerPool(WebControllerFactory factory, AnaxDriver anaxDriver, Integer defaultWaitSeconds, int size) {
+        this.factory = factory;
+        this.anaxDriver = anaxDriver;
+        this.defaultWaitSeconds = defaultWaitSeconds;
+        this.size = size;
+        this.permits = new Semaphore(size);
+    }
+
+    /**
+     * Lease a controller for the current thread, creating one if the pool has not reached its size yet, otherwise
+     * waiting for one to be released, or for a creation that failed to give its permit back.
+     * @return the leased controller
+     * @throws Exception if the controller cannot be created
+     */
+    public WebController lease() throws Exception {
+        WebController controller = idle.poll();
+        while (controller == null) {
+            if (permits.tryAcquire()) {
+                try {
+                    controller = factory.getWebController(anaxDriver, defaultWaitSeconds);
+                } catch (Exception e) {
+                    permits.release();
+                    throw e;
+                }
+                created.add(controller);
+                log.info("Created controller {} of {} for thread {}", created.size(), size, Thread.currentThread().getName());
+            } else {
+                // a released controller comes through the queue, a permit given back by a failed creation does not
+                controller = idle.poll(1, TimeUnit.SECONDS);
+            }
+        }
+        leased.set(controller);
+        return controller;
+    }
+
+    /**
+     * Return the controller leased by the current thread to the pool
+     */
+    public void release() {
+        WebController controller = leased.get();
+        leased.remove();
+        if (controller != null) {
+            idle.offer(controller);
+        }
+    }
+
+    /**
+     * Quit all the controllers created by this pool
+     */
+    public void quitAll() {
+        created.forEach(controller -> {
+            try {
+                controller.quit();
+            } catch (Exception e) {
+                log.warn("Failed to quit controller: {}", e.getMessage());
+            }
+        });
+        permits.release(created.size());
+        created.clear();
+        idle.clear();
+    }
+
+    /**
+     * @return the controller leased by the current thread, null if none
+     */
+    public static WebController current() {
+        return leased.get();
+    }
+
+    /**
+     * Creates a controller that routes every call to the controller leased by the calling thread, or to the
+     * fallback controller if the thread holds no lease.
+     * @param fallback the controller used by threads without a lease
+     * @return the routing controller
+     */
+    public static WebController routing(WebController fallback) {
+        return (WebController) Proxy.newProxyInstance(WebController.class.getClassLoader(), new Class<?>[]{WebController.class},
+                (proxy, method, args) -> {
+                    WebController target = leased.get();
+                    try {
+                        return method.invoke(target != null ? target : fallback, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
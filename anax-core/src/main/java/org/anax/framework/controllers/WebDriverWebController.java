@@ -4,8 +4,10 @@ package org.anax.framework.controllers;
 import lombok.extern.slf4j.Slf4j;
 import org.anax.framework.util.HttpCookie;
 import org.openqa.selenium.*;
+import org.openqa.selenium.NoSuchElementException;
 
 import org.openqa.selenium.interactions.Actions;
+import org.openqa.selenium.support.ui.ExpectedCondition;
 import org.openqa.selenium.support.ui.ExpectedConditions;
 import org.openqa.selenium.support.ui.Select;
 import org.openqa.selenium.support.ui.WebDriverWait;
@@ -23,12 +25,20 @@ public class WebDriverWebController implements WebController {
     private WebDriver driver;
     private final long defaultWaitSeconds;
 
+    /** The Constant LOCATOR_CACHE_SIZE. */
+    private static final int LOCATOR_CACHE_SIZE = 256;
+
+    /** The By of the locators used with the current driver. */
+    private final Map<String, By> locatorCache = Collections.synchronizedMap(new LinkedHashMap<String, By>(LOCATOR_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, By> eldest) {
+            return size() > LOCATOR_CACHE_SIZE;
+        }
+    });
+
     /** The Constant TO_MILLIS. */
     private static final int TO_MILLIS = 1000;
 
-    /** The Constant THREAD_SLEEP. */
-    private static final long THREAD_SLEEP = 10000;
-
     /** The Constant XPATH. */
     private static final String XPATH = "xpath";
 
@@ -58,6 +68,16 @@ public class WebDriverWebController implements WebController {
         return driver;
     }
 
+    /**
+     * Sets the driver, used when a pooled browser session is replaced between Tests.
+     *
+     * @param driver the driver
+     */
+    public void setDriver(WebDriver driver) {
+        this.driver = driver;
+        locatorCache.clear(); // css locators are bound to the driver
+    }
+
 
 
     /*
@@ -92,16 +112,24 @@ public class WebDriverWebController implements WebController {
     @Override
     public void waitForCondition(String jscondition, long waitSeconds) {
         JavascriptExecutor js = (JavascriptExecutor) driver;
-        boolean conditionResult;
-        long startTime = System.currentTimeMillis();
-        do {
-            conditionResult = ((Boolean) js.executeScript(jscondition)).booleanValue();
-            try {
-                Thread.sleep(THREAD_SLEEP);
-            } catch (InterruptedException e) {
-                log.error(e.getMessage());
-            }
-        } while (!conditionResult && System.currentTimeMillis() - startTime <= waitSeconds * TO_MILLIS);
+        try {
+            AdaptiveWait.defaults().until("condition " + jscondition, waitSeconds * TO_MILLIS,
+                    () -> (Boolean) js.executeScript(jscondition));
+        } catch (TimeoutException e) {
+            log.warn(e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for an expected condition with the adaptive wait.
+     *
+     * @param condition the condition
+     * @param description what is waited for
+     * @param waitMillis the maximum time to wait
+     * @return the value of the condition
+     */
+    private <T> T waitUntil(ExpectedCondition<T> condition, String description, long waitMillis) {
+        return AdaptiveWait.defaults().until(description, waitMillis, () -> condition.apply(driver));
     }
 
     /*
@@ -123,29 +151,19 @@ public class WebDriverWebController implements WebController {
     }
 
     /**
-     * Determine locator.
+     * Determine locator. The By of every locator string is cached per driver, in a bounded least recently used cache.
      *
      * @param locator
      *            the locator
      * @return the by
      */
     public By determineLocator(String locator) {
-        if (locator.startsWith(XPATH)) {
-            return By.xpath(findLocatorSubstring(locator));
-        } else if (locator.startsWith("//")) {
-            return By.xpath(locator);
-        } else if (locator.startsWith(CSS)) {
-            return ByExtended.cssSelector(findLocatorSubstring(locator), getDriver());
-        } else if (locator.startsWith(NAME)) {
-            return By.name(findLocatorSubstring(locator));
-        } else if (locator.startsWith(LINK)) {
-            return By.linkText(findLocatorSubstring(locator));
-        } else if (locator.startsWith(ID)) {
-            return By.id(findLocatorSubstring(locator));
-        }
-        else {
-            return By.id(locator);
+        By by = locatorCache.get(locator);
+        if (by == null) {
+            by = Locator.parse(locator).toBy(getDriver());
+            locatorCache.put(locator, by);
         }
+        return by;
     }
 
 
@@ -158,8 +176,16 @@ public class WebDriverWebController implements WebController {
      */
     @Override
     public WebElement waitForElement(String locator, long waitSeconds) {
-        WebDriverWait wait = new WebDriverWait(driver, waitSeconds,THREAD_SLEEP);
-        return wait.until(ExpectedConditions.visibilityOfElementLocated(determineLocator(locator)));
+        final long deadline = System.currentTimeMillis() + waitSeconds * TO_MILLIS;
+        if (MutationObserverWait.isEnabled()) {
+            Locator scriptLocator = Locator.parse(locator);
+            WebElement element = MutationObserverWait.waitForVisibility(driver, scriptLocator.getStrategy(), scriptLocator.getValue(), waitSeconds * TO_MILLIS);
+            if (element != null) {
+                return element;
+            }
+        }
+        return waitUntil(ExpectedConditions.visibilityOfElementLocated(determineLocator(locator)), "visibility of " + locator,
+                Math.max(0, deadline - System.currentTimeMillis()));
     }
 
 
@@ -171,8 +197,15 @@ public class WebDriverWebController implements WebController {
      */
     @Override
     public void waitForElementInvisibility(String locator, long waitSeconds) {
-        WebDriverWait wait = new WebDriverWait(driver, waitSeconds);
-        wait.until(ExpectedConditions.invisibilityOfElementLocated(determineLocator(locator)));
+        final long deadline = System.currentTimeMillis() + waitSeconds * TO_MILLIS;
+        if (MutationObserverWait.isEnabled()) {
+            Locator scriptLocator = Locator.parse(locator);
+            if (MutationObserverWait.waitForInvisibility(driver, scriptLocator.getStrategy(), scriptLocator.getValue(), waitSeconds * TO_MILLIS)) {
+                return;
+            }
+        }
+        waitUntil(ExpectedConditions.invisibilityOfElementLocated(determineLocator(locator)), "invisibility of " + locator,
+                Math.max(0, deadline - System.currentTimeMillis()));
 
     }
 
@@ -186,8 +219,7 @@ public class WebDriverWebController implements WebController {
      */
 
     public WebElement waitForElementPresence(String locator, long waitSeconds) {
-        WebDriverWait wait = new WebDriverWait(driver, waitSeconds,THREAD_SLEEP);
-        return wait.until(ExpectedConditions.presenceOfElementLocated(determineLocator(locator)));
+        return waitUntil(ExpectedConditions.presenceOfElementLocated(determineLocator(locator)), "presence of " + locator, waitSeconds * TO_MILLIS);
     }
 
     /*
@@ -199,8 +231,7 @@ public class WebDriverWebController implements WebController {
      */
     @Override
     public List<WebElement> findElements(String locator, long waitSeconds) {
-        WebDriverWait wait = new WebDriverWait(driver, waitSeconds,THREAD_SLEEP);
-        return wait.until(ExpectedConditions.presenceOfAllElementsLocatedBy(determineLocator(locator)));
+        return waitUntil(ExpectedConditions.presenceOfAllElementsLocatedBy(determineLocator(locator)), "presence of all " + locator, waitSeconds * TO_MILLIS);
     }
 
     /*
@@ -918,21 +949,15 @@ public class WebDriverWebController implements WebController {
      * @return the table header position
      */
     public String getTableHeaderPosition(String locator, String headerName) {
-        List<WebElement> columnHeaders = null;
-
-        WebElement element = waitForElement(locator, defaultWaitSeconds);
-
-        columnHeaders = element.findElements(By.cssSelector("th"));
+        return getTableHeaderPosition(getTableSnapshot(locator), headerName);
+    }
 
-        int position = 1;
-        for (WebElement record : columnHeaders) {
-            if (record.getText().equals(headerName)) {
-                return String.valueOf(position);
-            }
-            position++;
+    private static String getTableHeaderPosition(TableSnapshot table, String headerName) {
+        int position = table.getHeaderPosition(headerName);
+        if (position == 0) {
+            throw new WebDriverException("Header name not Found");
         }
-
-        throw new WebDriverException("Header name not Found");
+        return String.valueOf(position);
     }
 
     /* (non-Javadoc)
@@ -940,23 +965,11 @@ public class WebDriverWebController implements WebController {
      */
     @Override
     public String getTableElementColumnPosition(String locator,	String elementName) {
-        List<WebElement> tableRows = null;
-        List<WebElement> tableColumnsPerRow = null;
-        WebElement element = waitForElement(locator, defaultWaitSeconds);
-        tableRows = element.findElements(By.cssSelector("tbody tr"));
-
-        int position = 1;
-        for (WebElement row : tableRows) {
-            tableColumnsPerRow = row.findElements(By.cssSelector("td"));
-            for (WebElement column:tableColumnsPerRow){
-                if (column.getText().equals(elementName)) {
-                    return String.valueOf(position);
-                }
-                position++;
-            }
-            position = 1;
+        int position = getTableSnapshot(locator).getColumnPosition(elementName);
+        if (position == 0) {
+            throw new WebDriverException("Column name not Found");
         }
-        throw new WebDriverException("Column name not Found");
+        return String.valueOf(position);
     }
 
     /*
@@ -966,23 +979,15 @@ public class WebDriverWebController implements WebController {
      * getTableElementRowPosition(java.lang.String, java.lang.String)
      */
     public String getTableElementRowPosition(String locator, String elementName) {
+        return getTableElementRowPosition(getTableSnapshot(locator), elementName);
+    }
 
-        List<WebElement> tableRows = null;
-        List<WebElement> tableColumnsPerRow = null;
-        WebElement element = waitForElement(locator, defaultWaitSeconds);
-        tableRows = element.findElements(By.cssSelector("tbody tr"));
-
-        int position = 1;
-        for (WebElement row : tableRows) {
-            tableColumnsPerRow = row.findElements(By.cssSelector("td"));
-            for (WebElement column : tableColumnsPerRow) {
-                if (column.getText().equals(elementName)) {
-                    return String.valueOf(position);
-                }
-            }
-            position++;
+    private static String getTableElementRowPosition(TableSnapshot table, String elementName) {
+        int position = table.getRowPosition(elementName);
+        if (position == 0) {
+            throw new WebDriverException("Element not Found");
         }
-        throw new WebDriverException("Element not Found");
+        return String.valueOf(position);
     }
 
     /*
@@ -993,25 +998,31 @@ public class WebDriverWebController implements WebController {
      * java.lang.String)
      */
     public String getTableElementTextUnderHeader(String locator, String elementName, String headerName) {
-        WebElement element = waitForElement(locator, defaultWaitSeconds);
-        return element.findElement(By.cssSelector("tbody tr:nth-child(" + getTableElementRowPosition(locator, elementName) + ") td:nth-child(" + getTableHeaderPosition(locator, headerName) + ")"))
-                .getText();
+        TableSnapshot table = getTableSnapshot(locator);
+        String row = getTableElementRowPosition(table, elementName);
+        String column = getTableHeaderPosition(table, headerName);
+        return getDataCellText(table.getBodyRows(), row, column);
+    }
 
+    private static String getDataCellText(List<TableSnapshot.Row> rows, String row, String column) {
+        TableSnapshot.Cell cell = TableSnapshot.findDataCell(rows, Integer.parseInt(row), Integer.parseInt(column));
+        if (cell == null) {
+            throw new NoSuchElementException("No table cell at row " + row + " and column " + column);
+        }
+        return cell.getText();
     }
 
     /* (non-Javadoc)
      * @see com.persado.oss.quality.stevia.selenium.core.WebController#getTableRecordsUnderHeader(java.lang.String, java.lang.String)
      */
     public List<String> getTableRecordsUnderHeader(String locator,String headerName) {
-        List<String> records = new ArrayList<String>();
-        WebElement element = waitForElement(locator, defaultWaitSeconds);
-        String headerPosition = getTableHeaderPosition(locator,headerName);
-        List<WebElement> rows = element.findElements(By.cssSelector("tbody tr"));
-        for(WebElement row:rows){
-            records.add(row.findElement(By.cssSelector("th:nth-child("+ headerPosition + "),td:nth-child("+ headerPosition + ")")).getText());
+        TableSnapshot table = getTableSnapshot(locator);
+        String headerPosition = getTableHeaderPosition(table, headerName);
+        List<String> records = table.getColumn(Integer.parseInt(headerPosition));
+        if (records.contains(null)) {
+            throw new NoSuchElementException("A table row has no cell under header " + headerName);
         }
         return records;
-
     }
 
     /*
@@ -1023,8 +1034,7 @@ public class WebDriverWebController implements WebController {
      */
     @Override
     public String getTableElementTextForRowAndColumn(String locator, String row, String column) {
-        WebElement element = waitForElement(locator, defaultWaitSeconds);
-        return element.findElement(By.cssSelector("tr:nth-child(" + row + ") td:nth-child(" + column + ")")).getText();
+        return getDataCellText(getTableSnapshot(locator).getRows(), row, column);
     }
 
     /*
@@ -1035,39 +1045,39 @@ public class WebDriverWebController implements WebController {
      */
     @Override
     public String[][] getTableElements2DArray(String locator) {
-
-        WebElement element = waitForElement(locator, defaultWaitSeconds);
-        List<WebElement> tableRows = element.findElements(By.cssSelector("tbody tr"));
-        int numberOrRows = tableRows.size();
-        int numberOfColumns = element.findElements(By.cssSelector("tbody tr:nth-child(1) td")).size();
+        List<List<String>> data = getTableSnapshot(locator).getBodyData();
+        int numberOrRows = data.size();
+        int numberOfColumns = numberOrRows == 0 ? 0 : data.get(0).size();
         String[][] table = new String[numberOrRows][numberOfColumns];
 
         for (int i = 0; i < numberOrRows; i++) {
-            List<WebElement> tableColumnsPerRow = tableRows.get(i).findElements(By.cssSelector("td"));
-            for (int j = 0; j < tableColumnsPerRow.size(); j++) {
-                table[i][j] = tableColumnsPerRow.get(j).getText();
+            List<String> tableColumnsPerRow = data.get(i);
+            for (int j = 0; j < Math.min(numberOfColumns, tableColumnsPerRow.size()); j++) {
+                table[i][j] = tableColumnsPerRow.get(j);
             }
         }
 
         return table;
     }
 
+    /*
+     * (non-Javadoc)
+     *
+     * @see org.anax.framework.controllers.WebController#getTableSnapshot(java.lang.String, java.lang.String[])
+     */
+    @Override
+    public TableSnapshot getTableSnapshot(String locator, String... attributes) {
+        WebElement table = waitForElement(locator, defaultWaitSeconds);
+        return TableSnapshot.capture((JavascriptExecutor) driver, table, attributes);
+    }
+
     /* (non-Javadoc)
      * @see com.persado.oss.quality.stevia.selenium.core.WebController#getTableInfoAsList(java.lang.String)
      */
     @Override
     public List<List<String>> getTableInfoAsList(String locator) {
-        WebElement table = waitForElement(locator, defaultWaitSeconds);
         List<List<String>> tableInfo = new ArrayList<List<String>>();
-        List<WebElement> tableRows = table.findElements(By.cssSelector("tbody tr"));
-        for (WebElement row:tableRows){
-            List<String> rowText = new ArrayList<String>();
-            List<WebElement> columnsPerRow = row.findElements(By.cssSelector("td"));
-            for(WebElement column:columnsPerRow){
-                rowText.add(column.getText());
-            }
-            tableInfo.add(rowText);
-        }
+        getTableSnapshot(locator).getBodyData().forEach(row -> tableInfo.add(new ArrayList<String>(row)));
         return tableInfo;
     }
 
@@ -1081,17 +1091,8 @@ public class WebDriverWebController implements WebController {
      */
     @Override
     public String getTableElementSpecificHeaderLocator(String locator, String elementName, String headerName) {
-        if (locator.startsWith(XPATH)) {
-            return "//" + findLocatorSubstring(locator)+ "//tr[" + getTableElementRowPosition(locator, elementName) + "]//td[" + getTableHeaderPosition(locator, headerName) + "]";
-        } else if (locator.startsWith("//")) {
-            return locator + "//tr[" + getTableElementRowPosition(locator, elementName) + "]//td[" + getTableHeaderPosition(locator, headerName) + "]";
-        }
-
-        else if (locator.startsWith(CSS)) {
-            return locator + " tr:nth-child(" + getTableElementRowPosition(locator, elementName) + ") td:nth-child(" + getTableHeaderPosition(locator, headerName) + ")";
-        } else {
-            return "css=#" + locator + " tr:nth-child(" + getTableElementRowPosition(locator, elementName) + ") td:nth-child(" + getTableHeaderPosition(locator, headerName) + ")";
-        }
+        TableSnapshot table = getTableSnapshot(locator);
+        return getTableElementSpecificRowAndColumnLocator(locator, getTableElementRowPosition(table, elementName), getTableHeaderPosition(table, headerName));
     }
 
     /*
@@ -1433,20 +1434,10 @@ public class WebDriverWebController implements WebController {
      */
     @Override
     public void waitForAjaxComplete(long milliseconds) {
-        long endTime;
-        boolean ajaxComplete = false;
-        long startTime = System.currentTimeMillis();
-        do {
-            try {
-                ajaxComplete = ((Boolean) executeJavascript("return jQuery.active == 0")).booleanValue();
-                Thread.sleep(THREAD_SLEEP);
-            } catch (InterruptedException e) {
-                log.error(e.getMessage());
-            }
-            endTime = System.currentTimeMillis();
-        } while (!ajaxComplete && endTime - startTime <= milliseconds);
-
-        if (!ajaxComplete) {
+        try {
+            AdaptiveWait.defaults().until("AJAX completion", milliseconds,
+                    () -> (Boolean) executeJavascript("return jQuery.active == 0"));
+        } catch (TimeoutException e) {
             log.warn("The AJAX call was not completed with in " + milliseconds + " ms");
         }
     }
@@ -1520,23 +1511,17 @@ public class WebDriverWebController implements WebController {
 
     public Map<String, Map<String, String>> getTableInfo(String locator, int numberOfColumns) {
         Map<String, Map<String, String>> tableData = new HashMap<String, Map<String, String>>();
-        Map<String, String> tableColumns = null;
-        waitForElement(locator, defaultWaitSeconds);
-        int rowNumber = 1;
-        for (int counter = 1; counter <= getNumberOfTotalRows(locator); counter++) {
-            tableColumns = new HashMap<String, String>();
+        List<TableSnapshot.Row> rows = getTableSnapshot(locator).getBodyRows();
+        for (int counter = 1; counter <= rows.size(); counter++) {
+            Map<String, String> tableColumns = new HashMap<String, String>();
             for (int columns = 1; columns <= numberOfColumns; columns++) {
-                if (locator.startsWith("css")) {
-                    tableColumns.put("column_" + Integer.toString(columns), getText(locator + " *:nth-child(" + counter + ") *:nth-child(" + columns + ")"));
-                } else if (locator.startsWith("//") || locator.startsWith("xpath")) {
-                    tableColumns.put("column_" + Integer.toString(columns), getText(locator + "//*[" + counter + "]//*[" + columns + "]"));
-                } else {
-                    tableColumns.put("column_" + Integer.toString(columns), getText("css=#" + locator + " *:nth-child(" + counter + ") *:nth-child(" + columns + ")"));
-
+                TableSnapshot.Cell cell = rows.get(counter - 1).getCell(columns);
+                if (cell == null) {
+                    throw new NoSuchElementException("No table cell at row " + counter + " and column " + columns);
                 }
+                tableColumns.put("column_" + Integer.toString(columns), cell.getText());
             }
-            tableData.put("row_" + Integer.toString(rowNumber), tableColumns);
-            rowNumber = rowNumber + 1;
+            tableData.put("row_" + Integer.toString(counter), tableColumns);
         }
         return tableData;
     }
@@ -0,0 +1,235 @@
+package org.anax.framework.model;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Captured console output with a bounded memory footprint. Up to the memory limit the output is kept in memory; beyond
+ * it, the complete output is spilled to a file and only its head and tail are kept in memory. {@link #toString()}
+ * returns the output, truncated in the middle when spilled; {@link #openStream()} reads all of it.
+ * <p>
+ * The spill file is kept open only while appending: {@link #close()} closes it and the next write reopens it, so that
+ * captures kept until the end of the suite hold no file descriptor. {@link #discard()} deletes it.
+ * <p>
+ * The spill directory and the memory limit are set once per run with {@link #configure(File, int)}.
+ */
+@Slf4j
+public class CapturedOutput extends OutputStream implements Appendable {
+
+    private static volatile File spillDirectory = new File(System.getProperty("java.io.tmpdir"));
+    private static volatile int defaultMemoryLimit = 1024 * 1024;
+
+    private final int memoryLimit;
+    private ByteArrayOutputStream memory = new ByteArrayOutputStream();
+    private long length;
+
+    /** set once spilled: the first half of the memory limit, the file and a ring of the last half */
+    private byte[] head;
+    private byte[] tail;
+    private long tailPosition;
+    private File spillFile;
+    /** the open spill file, null when not spilled or closed */
+    private OutputStream spill;
+
+    public CapturedOutput() {
+        this(defaultMemoryLimit);
+    }
+
+    public CapturedOutput(int memoryLimit) {
+        this.memoryLimit = Math.max(2, memoryLimit);
+    }
+
+    /**
+     * @param directory where output beyond the memory limit is spilled
+     * @param memoryLimit the bytes of output kept in memory per capture
+     */
+    public static void configure(File directory, int memoryLimit) {
+        spillDirectory = directory;
+        defaultMemoryLimit = memoryLimit;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        length += len;
+        if (spillFile == null && memory.size() + len > memoryLimit) {
+            memory.write(b, off, len); // once, so that the head is kept even if this write alone exceeds the limit
+            startSpilling();
+            return;
+        }
+        if (spillFile == null) {
+            memory.write(b, off, len);
+            return;
+        }
+        if (spill == null) {
+            spill = new BufferedOutputStream(Files.newOutputStream(spillFile.toPath(), StandardOpenOption.APPEND));
+        }
+        spill.write(b, off, len);
+        for (int i = off; i < off + len; i++) { // keep the last bytes in the ring
+            tail[(int) (tailPosition++ % tail.length)] = b[i];
+        }
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (spill != null) {
+            spill.flush();
+        }
+    }
+
+    /**
+     * Closes the spill file, if open; the capture can still be written to and read
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (spill != null) {
+            spill.close();
+            spill = null;
+        }
+    }
+
+    @Override
+    public CapturedOutput append(CharSequence csq) {
+        return append(csq, 0, csq == null ? 4 : csq.length());
+    }
+
+    @Override
+    public CapturedOutput append(CharSequence csq, int start, int end) {
+        String text = String.valueOf(csq == null ? "null" : csq.subSequence(start, end));
+        try {
+            write(text.getBytes(Charset.defaultCharset()));
+        } catch (IOException e) {
+            log.error("Failed to capture output: {}", e.getMessage());
+        }
+        return this;
+    }
+
+    @Override
+    public CapturedOutput append(char c) {
+        return append(String.valueOf(c));
+    }
+
+    /**
+     * Appends all the output of another capture, streaming it if spilled, then closes the spill file of this capture
+     * @param other the other capture, may be null
+     * @return this capture
+     */
+    public synchronized CapturedOutput append(CapturedOutput other) {
+        if (other == null || other == this) {
+            return this;
+        }
+        try (InputStream in = other.openStream()) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                write(buffer, 0, read);
+            }
+            close();
+        } catch (IOException e) {
+            log.error("Failed to copy captured output: {}", e.getMessage());
+        }
+        return this;
+    }
+
+    /**
+     * @return the complete output, from the spill file if spilled
+     * @throws IOException if the spill file cannot be read
+     */
+    public synchronized InputStream openStream() throws IOException {
+        if (spillFile == null) {
+            return new ByteArrayInputStream(memory.toByteArray());
+        }
+        flush();
+        return new FileInputStream(spillFile);
+    }
+
+    /**
+     * @return the number of bytes captured
+     */
+    public synchronized long length() {
+        return length;
+    }
+
+    /**
+     * @return true if the output exceeded the memory limit and {@link #toString()} is truncated
+     */
+    public synchronized boolean isTruncated() {
+        return spillFile != null;
+    }
+
+    /**
+     * @return the file holding the complete output, null if not spilled
+     */
+    public synchronized File getSpillFile() {
+        return spillFile;
+    }
+
+    /**
+     * Closes and deletes the spill file, for captures that have been copied elsewhere or reported
+     */
+    public synchronized void discard() {
+        if (spillFile != null) {
+            try {
+                close();
+                Files.deleteIfExists(spillFile.toPath());
+            } catch (IOException e) {
+                log.debug("Failed to delete {}: {}", spillFile, e.getMessage());
+            }
+        }
+        memory = new ByteArrayOutputStream();
+        head = tail = null;
+        spill = null;
+        spillFile = null;
+        length = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (spillFile == null) {
+            return new String(memory.toByteArray(), Charset.defaultCharset());
+        }
+        long kept = Math.min(tailPosition, tail.length);
+        byte[] last = new byte[(int) kept];
+        for (int i = 0; i < kept; i++) {
+            last[i] = tail[(int) ((tailPosition - kept + i) % tail.length)];
+        }
+        return new String(head, Charset.defaultCharset())
+                + "\n... [" + (length - head.length - kept) + " bytes truncated] ...\n"
+                + new String(last, Charset.defaultCharset());
+    }
+
+    private void startSpilling() throws IOException {
+        if (!spillDirectory.exists()) {
+            spillDirectory.mkdirs();
+        }
+        File file = File.createTempFile("output-", ".log", spillDirectory);
+        spill = new BufferedOutputStream(Files.newOutputStream(file.toPath()));
+        spillFile = file;
+        byte[] content = memory.toByteArray();
+        spill.write(content);
+        head = new byte[Math.min(content.length, memoryLimit / 2)];
+        System.arraycopy(content, 0, head, 0, head.length);
+        tail = new byte[memoryLimit - memoryLimit / 2];
+        tailPosition = 0;
+        for (int i = head.length; i < content.length; i++) {
+            tail[(int) (tailPosition++ % tail.length)] = content[i];
+        }
+        memory = null;
+        log.debug("Output exceeded {} bytes, spilling to {}", memoryLimit, spillFile);
+    }
+}
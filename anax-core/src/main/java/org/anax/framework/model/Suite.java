@@ -19,26 +19,27 @@ public class Suite {
 
     int totalRunTime;
 
-    @Builder.Default StringBuilder out = new StringBuilder();
-    @Builder.Default StringBuilder err = new StringBuilder();
+    /** shared by Tests executing in parallel, hence synchronized captures and counters */
+    @Builder.Default CapturedOutput out = new CapturedOutput();
+    @Builder.Default CapturedOutput err = new CapturedOutput();
 
-    public void addFailed() {
+    public synchronized void addFailed() {
         failedTests++;
     }
 
-    public void addError() {
+    public synchronized void addError() {
         erroredTests++;
     }
 
-    public void addSkip() {
+    public synchronized void addSkip() {
         skippedTests++;
     }
 
-    public void addRun() {
+    public synchronized void addRun() {
         executedTests++;
     }
 
-    public void addExecutionTime(long execTime) {
+    public synchronized void addExecutionTime(long execTime) {
         totalRunTime += execTime;
     }
 }
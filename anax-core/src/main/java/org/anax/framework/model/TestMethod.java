@@ -22,7 +22,8 @@ public class TestMethod {
     Object dataproviderValue;
     Object datasupplierValue;
 
-    @Builder.Default StringBuilder stdOut = new StringBuilder();
-    @Builder.Default StringBuilder stdErr = new StringBuilder();
+    /** the output of the method and its pre and post conditions, bounded in memory */
+    @Builder.Default CapturedOutput stdOut = new CapturedOutput();
+    @Builder.Default CapturedOutput stdErr = new CapturedOutput();
 
 }
@@ -9,9 +9,6 @@ public class TestResult {
     boolean inError;
     boolean failed;
 
-    String stdOutput;
-    String stdError;
-
     Throwable throwable;
 
     public boolean notPassed() {
@@ -54,6 +54,9 @@ public class DefaultJUnitReporter implements XMLConstants, AnaxTestReporter, Rep
 
     private static final double ONE_SECOND = 1000.0;
 
+    /** prefix of the report file names */
+    static final String REPORT_PREFIX = "junit-compat-report-";
+
     /** constant for unnnamed testsuites/cases */
     private static final String UNKNOWN = "unknown";
 
@@ -124,11 +127,11 @@ public class DefaultJUnitReporter implements XMLConstants, AnaxTestReporter, Rep
     }
 
 
-    private String createReportFilename(String name) {
-        return "junit-compat-report-"+normalizeFile(name)+"-"+ Long.toHexString(System.currentTimeMillis()) + ".xml";
+    static String createReportFilename(String name) {
+        return REPORT_PREFIX+normalizeFile(name)+"-"+ Long.toHexString(System.currentTimeMillis()) + ".xml";
     }
 
-    private String normalizeFile(String s) {
+    private static String normalizeFile(String s) {
         char fileSep = File.pathSeparatorChar;
         char escape = '_'; // ... or some other legal char.
         int len = s.length();
@@ -207,7 +210,7 @@ public class DefaultJUnitReporter implements XMLConstants, AnaxTestReporter, Rep
      * get the local hostname
      * @return the name of the local host, or "localhost" if we cannot work it out
      */
-    private String getHostname()  {
+    static String getHostname()  {
         try {
             return InetAddress.getLocalHost().getHostName();
         } catch (UnknownHostException e) {
@@ -377,7 +380,7 @@ public class DefaultJUnitReporter implements XMLConstants, AnaxTestReporter, Rep
         nested.setAttribute(ATTR_TYPE, t.getClass().getName());
 
         if(controller.getClass()!= VoidController.class && screenshotEnable) {
-            takeScreenshot(test, testMethod);
+            takeScreenshot(controller, reportScreenshotDirectory, test, testMethod);
         } else {
             log.warn("Screenshot feature is disabled - no screenshot taken");
         }
@@ -388,7 +391,7 @@ public class DefaultJUnitReporter implements XMLConstants, AnaxTestReporter, Rep
     }
 
 
-    private void takeScreenshot(Test test, TestMethod testMethod) {
+    static void takeScreenshot(WebController controller, String reportScreenshotDirectory, Test test, TestMethod testMethod) {
 
         try {
             File screenShotFile = controller.takeScreenShot();
@@ -413,7 +416,7 @@ public class DefaultJUnitReporter implements XMLConstants, AnaxTestReporter, Rep
         return out.toString();
     }
 
-    private static final String deAnsify(String text) {
+    static final String deAnsify(String text) {
         return text.replaceAll("(\\x1b\\x5b|\\x9b)[\\x30-\\x3f]*[\\x20-\\x2f]*[\\x40-\\x7e]", "");
     }
 
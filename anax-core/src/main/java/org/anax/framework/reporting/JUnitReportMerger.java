@@ -0,0 +1,155 @@
+package org.anax.framework.reporting;
+
+import lombok.extern.slf4j.Slf4j;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import java.io.File;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Map;
+
+/**
+ * Merges the JUnit compatible reports produced by the shards of a parallel plan (one child process per Test) into
+ * a single testsuite report. Shards that did not produce a report are added as errored testcases.
+ */
+@Slf4j
+public class JUnitReportMerger implements XMLConstants {
+
+    /**
+     * Merge the shard reports
+     * @param suiteName the name of the merged suite
+     * @param shards the shard directories, keyed by the name of the test bean they executed
+     * @param crashes the reason of failure for the shards that did not complete, keyed by test bean name
+     * @param reportDirectory the directory of the merged report
+     * @return the merged report file
+     * @throws ReportException when a shard report cannot be read or the merged report cannot be written
+     */
+    public static File merge(String suiteName, Map<String, File> shards, Map<String, String> crashes, String reportDirectory) throws ReportException {
+        File output = new File(reportDirectory, DefaultJUnitReporter.createReportFilename(suiteName));
+        try {
+            DocumentBuilder builder = DocumentBuilderFactory.newInstance().newDocumentBuilder();
+            Document merged = builder.newDocument();
+            Element rootElement = merged.createElement(TESTSUITE);
+            rootElement.setAttribute(ATTR_NAME, suiteName);
+            rootElement.setAttribute(HOSTNAME, getHostname());
+            merged.appendChild(rootElement);
+
+            int tests = 0, failures = 0, errors = 0, skipped = 0;
+            double time = 0;
+            boolean hasProperties = false;
+            StringBuilder systemOut = new StringBuilder();
+            StringBuilder systemErr = new StringBuilder();
+
+            for (Map.Entry<String, File> shard : shards.entrySet()) {
+                File[] reports = shard.getValue().listFiles((dir, name) -> name.startsWith(DefaultJUnitReporter.REPORT_PREFIX) && name.endsWith(".xml"));
+                if (reports == null || reports.length == 0) {
+                    crashes.putIfAbsent(shard.getKey(), "No report was produced, see " + shard.getValue().getPath());
+                    continue;
+                }
+                for (File report : reports) {
+                    Element shardRoot = builder.parse(report).getDocumentElement();
+                    tests += intAttribute(shardRoot, ATTR_TESTS);
+                    failures += intAttribute(shardRoot, ATTR_FAILURES);
+                    errors += intAttribute(shardRoot, ATTR_ERRORS);
+                    skipped += intAttribute(shardRoot, ATTR_SKIPPED);
+                    time += shardRoot.hasAttribute(ATTR_TIME) ? Double.parseDouble(shardRoot.getAttribute(ATTR_TIME)) : 0;
+
+                    NodeList children = shardRoot.getChildNodes();
+                    for (int i = 0; i < children.getLength(); i++) {
+                        Node child = children.item(i);
+                        if (child.getNodeType() != Node.ELEMENT_NODE) {
+                            continue;
+                        }
+                        switch (child.getNodeName()) {
+                            case PROPERTIES:
+                                if (!hasProperties) { // all shards run with the same environment
+                                    rootElement.insertBefore(merged.importNode(child, true), rootElement.getFirstChild());
+                                    hasProperties = true;
+                                }
+                                break;
+                            case SYSTEM_OUT:
+                                systemOut.append(child.getTextContent());
+                                break;
+                            case SYSTEM_ERR:
+                                systemErr.append(child.getTextContent());
+                                break;
+                            default:
+                                rootElement.appendChild(merged.importNode(child, true));
+                        }
+                    }
+                }
+            }
+
+            for (Map.Entry<String, String> crash : crashes.entrySet()) {
+                Element testcase = merged.createElement(TESTCASE);
+                testcase.setAttribute(ATTR_NAME, crash.getKey());
+                testcase.setAttribute(ATTR_CLASSNAME, crash.getKey());
+                Element error = merged.createElement(ERROR);
+                error.setAttribute(ATTR_MESSAGE, crash.getValue());
+                error.setAttribute(ATTR_TYPE, "ParallelExecutionError");
+                testcase.appendChild(error);
+                rootElement.appendChild(testcase);
+                errors++;
+            }
+
+            Element out = merged.createElement(SYSTEM_OUT);
+            out.appendChild(merged.createCDATASection(systemOut.toString()));
+            rootElement.appendChild(out);
+            Element err = merged.createElement(SYSTEM_ERR);
+            err.appendChild(merged.createCDATASection(systemErr.toString()));
+            rootElement.appendChild(err);
+
+            rootElement.setAttribute(ATTR_TESTS, "" + tests);
+            rootElement.setAttribute(ATTR_FAILURES, "" + failures);
+            rootElement.setAttribute(ATTR_ERRORS, "" + errors);
+            rootElement.setAttribute(ATTR_SKIPPED, "" + skipped);
+            rootElement.setAttribute(ATTR_TIME, "" + time);
+
+            Transformer transformer = TransformerFactory.newInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.setOutputProperty("{http://xml.apache.org/xslt}indent-amount", "2");
+            transformer.transform(new DOMSource(rootElement), new StreamResult(output));
+            log.info("Merged {} shard reports of suite {} into {}", shards.size(), suiteName, output);
+            return output;
+        } catch (Exception e) {
+            throw new ReportException("Unable to merge the reports of suite " + suiteName + ", error = " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Whether a reporter writes the JUnit compatible reports that are merged, on its own or combined with others
+     * @param reporter the configured reporter
+     * @return true if the shards of a parallel plan produce reports to merge
+     */
+    public static boolean producesReports(AnaxTestReporter reporter) {
+        if (reporter instanceof SynchronizedTestReporter) {
+            return producesReports(((SynchronizedTestReporter) reporter).getReporter());
+        }
+        if (reporter instanceof AnaxCombinedReporter) {
+            return producesReports(((AnaxCombinedReporter) reporter).reporterA) || producesReports(((AnaxCombinedReporter) reporter).reporterB);
+        }
+        return reporter instanceof DefaultJUnitReporter || reporter instanceof StreamingJUnitReporter;
+    }
+
+    private static int intAttribute(Element element, String attribute) {
+        return element.hasAttribute(attribute) ? Integer.parseInt(element.getAttribute(attribute)) : 0;
+    }
+
+    private static String getHostname() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package org.anax.framework.reporting;
+
+/**
+ * A reporter whose per Test callbacks, from startAnaxTest to endAnaxTest, may be called by Tests running in parallel
+ * threads at once, as it keeps their state per Test. Its suite level callbacks are still called one at a time, see
+ * {@link SynchronizedTestReporter}.
+ */
+public interface ReporterSupportsParallelTests {
+}
@@ -0,0 +1,92 @@
+package org.anax.framework.reporting;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A bounded queue of reporting tasks that do media I/O, e.g. writing a video or uploading an attachment, run one at a
+ * time and in submission order by a background thread, so that the next test does not wait for them. A task that
+ * fails is logged and does not stop the ones after it.
+ * <p>
+ * When the queue is full, {@link #submit(String, Runnable)} waits for room, which bounds the media held in memory by
+ * the pending tasks. {@link #drain(long)} waits for the tasks submitted so far, at the end of the suite.
+ */
+@Slf4j
+public class ReportingTaskQueue {
+
+    private final ThreadPoolExecutor executor;
+
+    /**
+     * @param name the name of the background thread
+     * @param capacity the number of tasks that may be pending
+     */
+    public ReportingTaskQueue(String name, int capacity) {
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(Math.max(1, capacity)),
+                runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, pool) -> { // wait for room rather than reject the task
+                    try {
+                        if (pool.isShutdown()) {
+                            throw new RejectedExecutionException("Reporting queue " + name + " is shut down");
+                        }
+                        pool.getQueue().put(runnable);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new RejectedExecutionException("Interrupted while queueing a reporting task", e);
+                    }
+                });
+    }
+
+    /**
+     * Queues a task, waiting for room if the queue is full
+     * @param description what the task does, for the log
+     * @param task the task
+     */
+    public void submit(String description, Runnable task) {
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (Exception e) {
+                    log.error("Reporting task '{}' failed: {}", description, e.getMessage(), e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.error("Reporting task '{}' not run: {}", description, e.getMessage());
+        }
+    }
+
+    /**
+     * Waits for the tasks submitted so far to complete
+     * @param timeoutSeconds how long to wait at most
+     * @return true if they completed, false if some were still pending after the timeout
+     */
+    public boolean drain(long timeoutSeconds) {
+        int pending = executor.getQueue().size() + executor.getActiveCount();
+        if (pending > 0) {
+            log.info("Waiting for {} reporting tasks to complete", pending);
+        }
+        try {
+            Future<?> marker = executor.submit(() -> { }); // runs after all the tasks before it
+            marker.get(timeoutSeconds, TimeUnit.SECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            log.warn("{} reporting tasks still pending after {} seconds", executor.getQueue().size(), timeoutSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RejectedExecutionException e) {
+            log.error("Failed to wait for the reporting tasks: {}", e.getMessage());
+        }
+        return false;
+    }
+}
@@ -0,0 +1,348 @@
+package org.anax.framework.reporting;
+
+import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.controllers.VoidController;
+import org.anax.framework.controllers.WebController;
+import org.anax.framework.model.CapturedOutput;
+import org.anax.framework.model.Suite;
+import org.anax.framework.model.Test;
+import org.anax.framework.model.TestMethod;
+import org.springframework.core.env.AbstractEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.StandardEnvironment;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.StreamSupport;
+
+/**
+ * A JUnit compatible reporter that produces the same report as {@link DefaultJUnitReporter} without holding it in
+ * memory. Each testcase is written with StAX to a body file (the report file name plus {@link #PART_SUFFIX}) as soon as
+ * it ends; when the suite ends, the report is assembled from the testsuite header, whose counts are only known then,
+ * the body file and the suite output. If the run crashes, the body file holds every testcase completed so far.
+ * <p>
+ * The output of each testcase is streamed in full, from its spill file when it exceeded the capture memory limit.
+ */
+@Slf4j
+public class StreamingJUnitReporter implements XMLConstants, AnaxTestReporter, ReporterSupportsScreenshot {
+
+    /** suffix of the body file, next to the report file */
+    public static final String PART_SUFFIX = ".part";
+
+    private static final double ONE_SECOND = 1000.0;
+    private static final String UNKNOWN = "unknown";
+    private static final String SKIPPED = "skipped";
+
+    private final Environment environment;
+    private final WebController controller;
+    private final String reportScreenshotDirectory;
+    private final XMLOutputFactory outputFactory = XMLOutputFactory.newInstance();
+    private boolean screenshotEnable;
+
+    private File reportFile;
+    private File bodyFile;
+    private Writer bodyWriter;
+    private XMLStreamWriter body;
+    private String systemOut = "";
+    private String systemErr = "";
+
+    /** the testcases that have started but not ended yet, at most the ones executing concurrently */
+    private final Map<String, TestCase> pending = new HashMap<>();
+
+    public StreamingJUnitReporter(Environment environment, WebController controller, String reportScreenshotDirectory) {
+        this.environment = environment;
+        this.controller = controller;
+        this.reportScreenshotDirectory = reportScreenshotDirectory;
+    }
+
+    @Override
+    public void startOutput(String reportDirectory, String suiteName) throws FileNotFoundException {
+        reportFile = new File(reportDirectory, DefaultJUnitReporter.createReportFilename(suiteName));
+        bodyFile = new File(reportFile.getPath() + PART_SUFFIX);
+        bodyWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(bodyFile), StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void setSystemOutput(String out) {
+        systemOut = out;
+    }
+
+    @Override
+    public void setSystemError(String out) {
+        systemErr = out;
+    }
+
+    @Override
+    public void startTestSuite(Suite suite) throws ReportException {
+        if (bodyWriter == null) {
+            throw new ReportException("Cannot start test suite without output stream configured");
+        }
+        try {
+            body = outputFactory.createXMLStreamWriter(bodyWriter);
+        } catch (XMLStreamException e) {
+            throw new ReportException("Unable to start report " + bodyFile + ", error = " + e.getMessage(), e);
+        }
+        pending.clear();
+        systemOut = "";
+        systemErr = "";
+    }
+
+    @Override
+    public boolean endTestSuite(Suite suite) throws ReportException {
+        try {
+            // testcases that never ended, i.e. interrupted
+            for (TestCase testCase : new ArrayList<>(pending.values())) {
+                writeTestCase(testCase);
+            }
+            pending.clear();
+            body.close();
+            bodyWriter.close();
+
+            try (OutputStream out = new BufferedOutputStream(new FileOutputStream(reportFile))) {
+                XMLStreamWriter xml = outputFactory.createXMLStreamWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                xml.writeStartDocument("UTF-8", "1.0");
+                xml.writeCharacters("\n");
+                xml.writeStartElement(TESTSUITE);
+                xml.writeAttribute(ATTR_NAME, suite.getName() == null ? UNKNOWN : suite.getName());
+                xml.writeAttribute(HOSTNAME, DefaultJUnitReporter.getHostname());
+                xml.writeAttribute(ATTR_TESTS, "" + suite.getExecutedTests());
+                xml.writeAttribute(ATTR_FAILURES, "" + suite.getFailedTests());
+                xml.writeAttribute(ATTR_ERRORS, "" + suite.getErroredTests());
+                xml.writeAttribute(ATTR_SKIPPED, "" + suite.getSkippedTests());
+                xml.writeAttribute(ATTR_TIME, "" + (suite.getTotalRunTime() / ONE_SECOND));
+                xml.writeCharacters("\n");
+                writeProperties(xml);
+                xml.flush();
+
+                Files.copy(bodyFile.toPath(), out);
+
+                writeOutput(xml, SYSTEM_OUT, systemOut);
+                writeOutput(xml, SYSTEM_ERR, systemErr);
+                xml.writeEndElement();
+                xml.writeEndDocument();
+                xml.close();
+            }
+            Files.delete(bodyFile.toPath());
+            log.trace("Report: report writing completed");
+        } catch (IOException | XMLStreamException e) {
+            throw new ReportException("Unable to write report " + reportFile + ", error = " + e.getMessage(), e);
+        }
+        return suite.getFailedTests() + suite.getSkippedTests() + suite.getErroredTests() > 0;
+    }
+
+    @Override
+    public void startAnaxTest(Test test) {
+
+    }
+
+    @Override
+    public void endAnaxTest(Test test) {
+
+    }
+
+    @Override
+    public void startTest(Test test, TestMethod testMethod) {
+        pending.computeIfAbsent(createTestDescription(test, testMethod), k -> new TestCase(test, testMethod));
+    }
+
+    @Override
+    public void endTest(Test test, TestMethod testMethod) {
+        TestCase testCase = pending.remove(createTestDescription(test, testMethod));
+        if (testCase == null) {
+            testCase = new TestCase(test, testMethod);
+        }
+        try {
+            writeTestCase(testCase);
+        } catch (XMLStreamException e) {
+            log.error("Unable to write testcase {}: {}", testCase.name, e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void addFailure(Test test, TestMethod method, Throwable t) {
+        addProblem(FAILURE, test, method, t);
+    }
+
+    @Override
+    public void addError(Test test, TestMethod method, Throwable t) {
+        addProblem(ERROR, test, method, t);
+    }
+
+    @Override
+    public void addSkipped(Test test, TestMethod method, String skipReason) {
+        if (test == null) {
+            return;
+        }
+        startTest(test, method);
+        pending.get(createTestDescription(test, method)).skipReason = skipReason == null ? "" : skipReason;
+    }
+
+    @Override
+    public void screenshotRecording(boolean enable) {
+        screenshotEnable = enable;
+    }
+
+    private void addProblem(String type, Test test, TestMethod method, Throwable t) {
+        Problem problem = new Problem(type, t);
+        if (test == null) { // a suite level problem, written directly under the testsuite
+            try {
+                writeProblem(problem);
+                body.flush();
+            } catch (XMLStreamException e) {
+                log.error("Unable to write suite {}: {}", type, e.getMessage(), e);
+            }
+            return;
+        }
+        startTest(test, method);
+        pending.get(createTestDescription(test, method)).problems.add(problem);
+
+        if (controller.getClass() != VoidController.class && screenshotEnable) {
+            DefaultJUnitReporter.takeScreenshot(controller, reportScreenshotDirectory, test, method);
+        } else {
+            log.warn("Screenshot feature is disabled - no screenshot taken");
+        }
+    }
+
+    private void writeTestCase(TestCase testCase) throws XMLStreamException {
+        body.writeCharacters("\n");
+        body.writeStartElement(TESTCASE);
+        body.writeAttribute(ATTR_NAME, testCase.name);
+        body.writeAttribute(ATTR_CLASSNAME, testCase.className);
+        body.writeAttribute(ATTR_TIME, "" + ((System.currentTimeMillis() - testCase.start) / ONE_SECOND));
+        for (Problem problem : testCase.problems) {
+            writeProblem(problem);
+        }
+        if (testCase.skipReason != null) {
+            body.writeStartElement(SKIPPED);
+            body.writeAttribute(ATTR_MESSAGE, testCase.skipReason);
+            body.writeEndElement();
+        }
+        writeOutput(body, SYSTEM_ERR, testCase.testMethod.getStdErr());
+        writeOutput(body, SYSTEM_OUT, testCase.testMethod.getStdOut());
+        body.writeEndElement();
+        body.flush(); // a crashed run keeps every completed testcase
+    }
+
+    private void writeProblem(Problem problem) throws XMLStreamException {
+        body.writeStartElement(problem.type);
+        if (problem.message != null && problem.message.length() > 0) {
+            body.writeAttribute(ATTR_MESSAGE, problem.message);
+        }
+        body.writeAttribute(ATTR_TYPE, problem.exceptionType);
+        body.writeCharacters(xmlSafe(problem.trace));
+        body.writeEndElement();
+    }
+
+    private void writeProperties(XMLStreamWriter xml) throws XMLStreamException {
+        xml.writeStartElement(PROPERTIES);
+        if (environment instanceof StandardEnvironment) {
+            final List<String> names = new ArrayList<>();
+            StreamSupport.stream(((AbstractEnvironment) environment).getPropertySources().spliterator(), false)
+                    .filter(ps -> ps instanceof EnumerablePropertySource)
+                    .map(ps -> ((EnumerablePropertySource) ps).getPropertyNames())
+                    .flatMap(Arrays::<String>stream)
+                    .forEach(names::add);
+            for (String name : names) {
+                String value = environment.getProperty(name);
+                xml.writeEmptyElement(PROPERTY);
+                xml.writeAttribute(ATTR_NAME, name);
+                xml.writeAttribute(ATTR_VALUE, value == null ? "" : xmlSafe(value));
+            }
+        }
+        xml.writeEndElement();
+        xml.writeCharacters("\n");
+    }
+
+    private static void writeOutput(XMLStreamWriter xml, String type, String output) throws XMLStreamException {
+        xml.writeStartElement(type);
+        // a CDATA section cannot contain its own terminator, split it
+        xml.writeCData(xmlSafe(DefaultJUnitReporter.deAnsify(output)).replace("]]>", "]]]]><![CDATA[>"));
+        xml.writeEndElement();
+    }
+
+    private static void writeOutput(XMLStreamWriter xml, String type, CapturedOutput output) throws XMLStreamException {
+        if (!output.isTruncated()) {
+            writeOutput(xml, type, output.toString());
+            return;
+        }
+        xml.writeStartElement(type);
+        // one CDATA section per chunk, a terminator split across two chunks is then split as well
+        try (Reader reader = new InputStreamReader(output.openStream(), Charset.defaultCharset())) {
+            char[] chunk = new char[8192];
+            int read;
+            while ((read = reader.read(chunk)) != -1) {
+                String text = new String(chunk, 0, read);
+                xml.writeCData(xmlSafe(DefaultJUnitReporter.deAnsify(text)).replace("]]>", "]]]]><![CDATA[>"));
+            }
+        } catch (IOException e) {
+            log.error("Unable to read the output in {}: {}", output.getSpillFile(), e.getMessage());
+            xml.writeCData(xmlSafe(DefaultJUnitReporter.deAnsify(output.toString())).replace("]]>", "]]]]><![CDATA[>"));
+        }
+        xml.writeEndElement();
+    }
+
+    /** removes the characters that XML 1.0 does not allow */
+    private static String xmlSafe(String text) {
+        return text.replaceAll("[^\\x09\\x0A\\x0D\\x20-\\uD7FF\\uE000-\\uFFFD\\uD800-\\uDBFF\\uDC00-\\uDFFF]", "");
+    }
+
+    private static String createTestDescription(Test test, TestMethod method) {
+        return test.getTestBean().getClass().getName() + " - " + method.getTestMethod().getName();
+    }
+
+    private static class TestCase {
+        final String name;
+        final String className;
+        final TestMethod testMethod;
+        final long start = System.currentTimeMillis();
+        final List<Problem> problems = new ArrayList<>(1);
+        String skipReason;
+
+        TestCase(Test test, TestMethod testMethod) {
+            this.className = test.getTestBean().getClass().getName();
+            this.name = className + "." + testMethod.getTestMethod().getName() + "()";
+            this.testMethod = testMethod;
+        }
+    }
+
+    private static class Problem {
+        final String type;
+        final String message;
+        final String exceptionType;
+        final String trace;
+
+        Problem(String type, Throwable t) {
+            Throwable actual = t;
+            String message = actual.getMessage();
+            while (message == null && actual.getCause() != null) {
+                actual = actual.getCause();
+                message = actual.getMessage();
+            }
+            this.type = type;
+            this.message = message;
+            this.exceptionType = t.getClass().getName();
+            this.trace = DefaultJUnitReporter.getFilteredTrace(t);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.anax.framework.reporting;
+
+import org.anax.framework.model.Suite;
+import org.anax.framework.model.Test;
+import org.anax.framework.model.TestMethod;
+
+import java.io.FileNotFoundException;
+
+/**
+ * A reporter that serializes the callbacks to the {@link AnaxTestReporter} it wraps, so that reporters that keep
+ * per suite state can be used by Tests executing in parallel threads. The per Test callbacks of a reporter that
+ * {@link ReporterSupportsParallelTests} are not serialized, so that a slow one, e.g. a lookup in Jira, does not hold up
+ * the other Tests; the suite level ones always are.
+ */
+public class SynchronizedTestReporter implements AnaxTestReporter, ReporterSupportsScreenshot, ReporterSupportsVideo {
+
+    private final AnaxTestReporter reporter;
+    private final boolean parallelTests;
+
+    public SynchronizedTestReporter(AnaxTestReporter reporter) {
+        this.reporter = reporter;
+        this.parallelTests = reporter instanceof ReporterSupportsParallelTests;
+    }
+
+    /**
+     * Synchronizes a reporter, each of the reporters it combines on its own, so that one that supports parallel Tests
+     * is not serialized with one that does not
+     * @param reporter the configured reporter
+     * @return the reporter to use from parallel threads
+     */
+    public static AnaxTestReporter synchronize(AnaxTestReporter reporter) {
+        if (reporter instanceof AnaxCombinedReporter) {
+            AnaxCombinedReporter combined = (AnaxCombinedReporter) reporter;
+            return new AnaxCombinedReporter(synchronize(combined.reporterA), synchronize(combined.reporterB));
+        }
+        return new SynchronizedTestReporter(reporter);
+    }
+
+    AnaxTestReporter getReporter() {
+        return reporter;
+    }
+
+    @Override
+    public synchronized void startOutput(String reportDirectory, String suiteName) throws FileNotFoundException {
+        reporter.startOutput(reportDirectory, suiteName);
+    }
+
+    @Override
+    public synchronized void setSystemOutput(String out) {
+        reporter.setSystemOutput(out);
+    }
+
+    @Override
+    public synchronized void setSystemError(String out) {
+        reporter.setSystemError(out);
+    }
+
+    @Override
+    public synchronized void startTestSuite(Suite suite) throws ReportException {
+        reporter.startTestSuite(suite);
+    }
+
+    @Override
+    public synchronized boolean endTestSuite(Suite suite) throws ReportException {
+        return reporter.endTestSuite(suite);
+    }
+
+    @Override
+    public void startAnaxTest(Test test) {
+        perTest(() -> reporter.startAnaxTest(test));
+    }
+
+    @Override
+    public void endAnaxTest(Test test) {
+        perTest(() -> reporter.endAnaxTest(test));
+    }
+
+    @Override
+    public void startTest(Test test, TestMethod testMethod) {
+        perTest(() -> reporter.startTest(test, testMethod));
+    }
+
+    @Override
+    public void endTest(Test test, TestMethod testMethod) {
+        perTest(() -> reporter.endTest(test, testMethod));
+    }
+
+    @Override
+    public void addFailure(Test test, TestMethod method, Throwable t) {
+        perTest(() -> reporter.addFailure(test, method, t));
+    }
+
+    @Override
+    public void addSkipped(Test test, TestMethod method, String skipReason) {
+        perTest(() -> reporter.addSkipped(test, method, skipReason));
+    }
+
+    @Override
+    public void addError(Test test, TestMethod method, Throwable t) {
+        perTest(() -> reporter.addError(test, method, t));
+    }
+
+    @Override
+    public synchronized void screenshotRecording(boolean enable) {
+        if (reporter instanceof ReporterSupportsScreenshot) {
+            ((ReporterSupportsScreenshot) reporter).screenshotRecording(enable);
+        }
+    }
+
+    @Override
+    public synchronized void videoRecording(boolean enable, String videoBaseDirectory) {
+        if (reporter instanceof ReporterSupportsVideo) {
+            ((ReporterSupportsVideo) reporter).videoRecording(enable, videoBaseDirectory);
+        }
+    }
+
+    private void perTest(Runnable callback) {
+        if (parallelTests) {
+            callback.run();
+        } else {
+            synchronized (this) {
+                callback.run();
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 package org.anax.framework.testing;
 
 import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.controllers.TableSnapshot;
 import org.anax.framework.controllers.WebController;
+import org.openqa.selenium.NoSuchElementException;
+import org.openqa.selenium.WebDriverException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -379,12 +382,23 @@ public class Verify {
      * @param expectedText the expected text
      */
     public void tableElementTextUnderHeader(String locator, String elementName, String headerName, String expectedText) {
+        TableSnapshot table = controller.getTableSnapshot(locator);
+        int row = table.getRowPosition(elementName);
+        if (row == 0) {
+            throw new WebDriverException("Element not Found");
+        }
+        int column = getTableHeaderPosition(table, headerName);
+        TableSnapshot.Cell cell = TableSnapshot.findDataCell(table.getBodyRows(), row, column);
+        if (cell == null) {
+            throw new NoSuchElementException("No table cell at row " + row + " and column " + column);
+        }
+        String cellLocator = controller.getTableElementSpecificRowAndColumnLocator(locator, String.valueOf(row), String.valueOf(column));
         try {
-            Assert.isTrue(controller.getTableElementTextUnderHeader(locator, elementName,headerName).equals(expectedText),TABLE_ELEMENT + elementName + NOT_FOUND_WITH_TEXT+ expectedText + "' for header '" + headerName + "'!");
-            controller.highlight(controller.getTableElementSpecificHeaderLocator(locator, elementName, headerName),PASS_COLOR);
+            Assert.isTrue(expectedText.equals(cell.getText()),TABLE_ELEMENT + elementName + NOT_FOUND_WITH_TEXT+ expectedText + "' for header '" + headerName + "'!");
+            controller.highlight(cellLocator,PASS_COLOR);
             info(TABLE_ELEMENT + elementName + FOUND_WITH_TEXT+ expectedText + "' for header '" + headerName + "'!");
         } catch (IllegalArgumentException e) {
-            controller.highlight(controller.getTableElementSpecificHeaderLocator(locator, elementName, headerName),FAIL_COLOR);
+            controller.highlight(cellLocator,FAIL_COLOR);
             error(TABLE_ELEMENT + elementName + NOT_FOUND_WITH_TEXT+ expectedText + "' for header '" + headerName + "'!");
             throw e;
         }
@@ -419,7 +433,8 @@ public class Verify {
      */
     public void tableElementAtRowPosition(String locator,String elementName, String expectedRow) {
         try {
-            Assert.isTrue(controller.getTableElementRowPosition(locator, elementName).equals(expectedRow),TABLE_ELEMENT + elementName + "' was not found in row '"+ expectedRow + "' but in row "+controller.getTableElementRowPosition(locator, elementName)+"'!");
+            String actualRow = controller.getTableElementRowPosition(locator, elementName);
+            Assert.isTrue(actualRow.equals(expectedRow),TABLE_ELEMENT + elementName + "' was not found in row '"+ expectedRow + "' but in row "+actualRow+"'!");
             info(TABLE_ELEMENT + elementName + "' was found in row '"+ expectedRow + "'!");
         } catch (IllegalArgumentException e) {
             error(TABLE_ELEMENT + elementName + "' was not found in row '"+ expectedRow + "'!");
@@ -458,9 +473,11 @@ public class Verify {
      * @param expectedText the expected text in the specified location
      */
     public void textIsContainedInTableRecordsUnderHeader(String locator,String headerName, String expectedText) {
-        List<String> records = controller.getTableRecordsUnderHeader(locator, headerName);
+        TableSnapshot table = controller.getTableSnapshot(locator);
+        List<String> records = getTableRecordsUnderHeader(table, headerName);
         if (records.contains(expectedText)){
-            controller.highlight(controller.getTableElementSpecificHeaderLocator(locator, expectedText, headerName),PASS_COLOR);
+            String cellLocator = getTableElementSpecificHeaderLocator(locator, table, expectedText, headerName);
+            controller.highlight(cellLocator != null ? cellLocator : locator,PASS_COLOR);
             info("The '" + expectedText + "' was found with in table with locator '" + locator + "' under header '" + headerName +"'");
             return;
         }
@@ -477,17 +494,42 @@ public class Verify {
      * @param expectedText the text that is not expected in the specified location
      */
     public void textIsNotContainedInTableRecordsUnderHeader(String locator,String headerName, String expectedText) {
-        List<String> records = controller.getTableRecordsUnderHeader(locator, headerName);
+        TableSnapshot table = controller.getTableSnapshot(locator);
+        List<String> records = getTableRecordsUnderHeader(table, headerName);
         if (!records.contains(expectedText)){
             controller.highlight(locator,PASS_COLOR);
             info("The '" + expectedText + "' was not found not with in table with locator '" + locator + "' under header '" + headerName +"'");
             return;
         }
-        controller.highlight(controller.getTableElementSpecificHeaderLocator(locator, expectedText, headerName),FAIL_COLOR);
+        String cellLocator = getTableElementSpecificHeaderLocator(locator, table, expectedText, headerName);
+        controller.highlight(cellLocator != null ? cellLocator : locator,FAIL_COLOR);
         error("The '" + expectedText + "' was found with in table with locator '" + locator + "' under header '" + headerName +"'");
         throw new AssertionError();
     }
 
+    private static List<String> getTableRecordsUnderHeader(TableSnapshot table, String headerName) {
+        return table.getColumn(getTableHeaderPosition(table, headerName));
+    }
+
+    private static int getTableHeaderPosition(TableSnapshot table, String headerName) {
+        int column = table.getHeaderPosition(headerName);
+        if (column == 0) {
+            throw new WebDriverException("Header name not Found");
+        }
+        return column;
+    }
+
+    /**
+     * The locator of a table cell, built from positions found in the snapshot instead of being looked up again.
+     *
+     * @return the cell locator, null if the element or the header is not in the table
+     */
+    private String getTableElementSpecificHeaderLocator(String locator, TableSnapshot table, String elementName, String headerName) {
+        int row = table.getRowPosition(elementName);
+        int column = table.getHeaderPosition(headerName);
+        return row > 0 && column > 0 ? controller.getTableElementSpecificRowAndColumnLocator(locator, String.valueOf(row), String.valueOf(column)) : null;
+    }
+
     /**
      * List options. Check all options available in a list
      *
@@ -2,11 +2,15 @@ package org.anax.framework.reporting;
 
 import io.qameta.allure.*;
 import io.qameta.allure.model.*;
+import io.qameta.allure.model.Attachment;
 import io.qameta.allure.model.Link;
 import lombok.extern.slf4j.Slf4j;
 import org.anax.framework.annotations.AnaxIssues;
 import org.anax.framework.annotations.AnaxTestStep;
-import org.anax.framework.capture.VideoMaker;
+import org.anax.framework.capture.BrowserCapture;
+import org.anax.framework.capture.CaptureProfile;
+import org.anax.framework.capture.ScreenRecorder;
+import org.anax.framework.controllers.SerializedWebController;
 import org.anax.framework.controllers.WebController;
 import org.anax.framework.model.Suite;
 import org.anax.framework.model.Test;
@@ -17,10 +21,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
 import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -29,19 +36,39 @@ import static io.qameta.allure.util.ResultsUtils.getThreadName;
 
 @Service("allureAnaxTestReporter")
 @Slf4j
-public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScreenshot, ReporterSupportsVideo {
+public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScreenshot, ReporterSupportsVideo, ReporterSupportsParallelTests {
 
     @Value("${anax.keepResults:false}") Boolean keepResults;
     @Value("${anax.allure.report.directory:allure-report/}") String reportAllureDirectory;
     @Value("${anax.allure.results.directory:allure-results/}") String resultsAllureDirectory;
     /** do not change the FPS value over 15, due to h/w limitations */
     @Value("${anax.video.fps:10}") Integer videoFramesPerSec;
-    /** how many seconds to continue recording, after the "end recording" has been called */
-    @Value("${anax.video.waitSecAtEnd:5}") Integer videoWaitSeconds;
+    /** the size of the recorded frames relative to the screen, e.g. 0.5 for a quarter of the pixels */
+    @Value("${anax.video.scale:1.0}") Double videoScale;
+    /** the color depth of the recording, 24 bit, or 16 bit for smaller videos in fewer colors */
+    @Value("${anax.video.depth:24}") Integer videoDepth;
+    /** screen to record the display, browser to record the screenshots of the browser, e.g. when headless */
+    @Value("${anax.video.source:screen}") String videoSource;
+    /** the frames per second of the browser source, each a screenshot taken between the commands of the Test */
+    @Value("${anax.video.browserFps:2}") Integer videoBrowserFramesPerSec;
+    /** the Tests run at once; the browser source can only record the browser of a single Test */
+    @Value("${anax.parallel.threads:0}") Integer parallelThreads;
+    /** how many seconds of screen to keep for the video of a failed test */
+    @Value("${anax.video.bufferSeconds:120}") Integer videoBufferSeconds;
+    /** how much memory the kept screen may use */
+    @Value("${anax.video.bufferMegabytes:512}") Integer videoBufferMegabytes;
+    /** how many videos and screenshots may wait to be written, before the tests wait for them */
+    @Value("${anax.report.mediaQueueSize:16}") Integer mediaQueueSize;
+    /** how long the end of the suite waits for the pending videos and screenshots */
+    @Value("${anax.report.mediaDrainSeconds:300}") Integer mediaDrainSeconds;
 
     private final AllureLifecycle lifecycle;
     private String suiteName;
-    private VideoMaker videoMaker;
+    private volatile ScreenRecorder screenRecorder;
+    /** when the recording of each running test case started, by its uuid, as Tests may run in parallel */
+    private final Map<String, Long> videoStarts = new ConcurrentHashMap<>();
+    /** writes the videos and screenshots, and then the test cases they are attached to, while the next test runs */
+    private ReportingTaskQueue mediaTasks;
 
     @Autowired
     protected WebController controller;
@@ -50,7 +77,7 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
     private boolean videoEnable;
     private String videoBaseDirectory;
     private String reportDirectory;
-    private Boolean failed = false;
+    private volatile boolean failed;
 
     public AnaxAllureReporter() {
         this.lifecycle = Allure.getLifecycle();
@@ -60,6 +87,11 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
         return lifecycle;
     }
 
+    @PostConstruct
+    public void init() {
+        mediaTasks = new ReportingTaskQueue("allure-media", mediaQueueSize);
+    }
+
 
     @Override
     public void startOutput(String reportDirectory, String suiteName){
@@ -93,6 +125,7 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
 
     @Override
     public boolean endTestSuite(Suite suite){
+        mediaTasks.drain(mediaDrainSeconds);
         try{
             generate(new File(reportDirectory).toPath(), Arrays.asList(new File(resultsAllureDirectory).toPath()), true);
         }catch(Exception e){
@@ -117,11 +150,15 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
 
         if (videoEnable) {
             try {
-
-                File base = new File(videoBaseDirectory);
-                base.mkdirs();
-                videoMaker = new VideoMaker(new File(videoBaseDirectory + "/" + testUniqueID + ".mov").toPath(),
-                        videoFramesPerSec, videoWaitSeconds);
+                CaptureProfile profile = CaptureProfile.builder()
+                        .framesPerSec("browser".equalsIgnoreCase(videoSource) ? videoBrowserFramesPerSec : videoFramesPerSec)
+                        .scale(videoScale).depth(videoDepth).build();
+                screenRecorder = "browser".equalsIgnoreCase(videoSource)
+                        ? ScreenRecorder.shared(() -> new BrowserCapture(this::takeBrowserScreenshot, profile), videoBufferSeconds, videoBufferMegabytes)
+                        : ScreenRecorder.shared(profile, videoBufferSeconds, videoBufferMegabytes);
+                long videoStart = System.currentTimeMillis();
+                videoStarts.put(testUniqueID, videoStart);
+                screenRecorder.keepOnExit(testUniqueID, videoStart, getVideoPath(testUniqueID));
             } catch (Exception e) {
                 e.printStackTrace();
             }
@@ -134,20 +171,32 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
     @Override
     public void endTest(Test test, TestMethod testMethod) {
         String testUniqueID = getUniqueUuid(test,testMethod);
+        Long videoStart = videoStarts.remove(testUniqueID);
+        if (screenRecorder != null) {
+            screenRecorder.discardOnExit(testUniqueID);
+        }
 
         if (videoEnable) {
-           if (videoMaker != null) {
+           if (screenRecorder != null && videoStart != null) {
                try {
-                   videoMaker.completeVideo();
-
                    switch (getStepStatus(testMethod)) {
                        case SKIPPED:
                        case PASSED:
-                           //NOOP
+                           //NOOP, the recording is only kept for failures
                            break;
                        case FAILED:
                        case BROKEN:
-                           getLifecycle().updateTestCase(testUniqueID, setRecording(testUniqueID));
+                           ScreenRecorder.Clip clip = screenRecorder.clip(videoStart);
+                           Path recording = getVideoPath(testUniqueID);
+                           mediaTasks.submit("video " + recording, () -> {
+                               try {
+                                   if (clip.write(recording)) {
+                                       attach(testUniqueID, "Recording." + testUniqueID + ".mov", "video/quicktime", "mov", recording);
+                                   }
+                               } catch (IOException e) {
+                                   log.error("Exception when adding video to attachments {}", e.getMessage(), e);
+                               }
+                           });
                            break;
 
                    }
@@ -168,7 +217,8 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
         if(!testMethod.isSkip()){getLifecycle().updateTestCase(testUniqueID, setPassStdOut(testMethod));}
 
         getLifecycle().stopTestCase(testUniqueID);
-        getLifecycle().writeTestCase(testUniqueID);
+        // after the attachments of the test, queued before
+        mediaTasks.submit("test case " + testUniqueID, () -> getLifecycle().writeTestCase(testUniqueID));
     }
 
     @Override
@@ -176,7 +226,7 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
         getLifecycle().updateTestCase(getUniqueUuid(test,testMethod), setStatus(Status.FAILED,throwable, testMethod));
         try {
             failed = true;
-            takeScreenshotOnFailure();
+            takeScreenshotOnFailure(getUniqueUuid(test,testMethod));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -187,7 +237,7 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
         getLifecycle().updateTestCase(getUniqueUuid(test,testMethod), setStatus(Status.SKIPPED,skipReason));
         try {
             failed = true;
-            takeScreenshotOnFailure();
+            takeScreenshotOnFailure(getUniqueUuid(test,testMethod));
         } catch (IOException e) {
             e.printStackTrace();
         }
@@ -384,16 +434,48 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
         }
     }
 
-    private void takeScreenshotOnFailure() throws IOException {
+    /**
+     * Takes a screenshot of the browser for its recording, between the commands of the Test; none while an alert is
+     * open, the driver would dismiss it
+     * @return the PNG screenshot, null if none was taken
+     * @throws Exception if the screenshot fails
+     */
+    private byte[] takeBrowserScreenshot() throws Exception {
+        return SerializedWebController.between(controller, () -> controller.isAlertPresent() ? null : controller.takeScreenShotAsBytes());
+    }
+
+    private Path getVideoPath(String testUniqueID) {
+        return new File(videoBaseDirectory + "/" + testUniqueID + ".mov").toPath();
+    }
+
+    private void takeScreenshotOnFailure(String testUniqueID) throws IOException {
         if (screenshotEnable) {
-            AllureAddAttachment();
+            AllureAddAttachment(testUniqueID);
         } else {
             log.warn("Screenshot feature disabled");
         }
     }
 
-    private void AllureAddAttachment() throws IOException {
-        Allure.addAttachment("Screenshot", new ByteArrayInputStream(controller.takeScreenShotAsBytes()));
+    private void AllureAddAttachment(String testUniqueID) throws IOException {
+        byte[] screenshot = controller.takeScreenShotAsBytes(); // now, the page changes once the next test runs
+        if (screenshot != null) {
+            mediaTasks.submit("screenshot " + testUniqueID, () ->
+                    attach(testUniqueID, "Screenshot", "image/png", "png", new ByteArrayInputStream(screenshot)));
+        }
+    }
+
+    /** attaches a file to a test case, by its uuid rather than the current test of the thread, in the background */
+    private void attach(String testUniqueID, String name, String type, String extension, Path file) throws IOException {
+        try (InputStream data = Files.newInputStream(file)) {
+            attach(testUniqueID, name, type, extension, data);
+        }
+    }
+
+    private void attach(String testUniqueID, String name, String type, String extension, InputStream data) {
+        String source = UUID.randomUUID().toString() + "-attachment." + extension;
+        getLifecycle().writeAttachment(source, data);
+        getLifecycle().updateTestCase(testUniqueID, result ->
+                result.getAttachments().add(new Attachment().withName(name).withType(type).withSource(source)));
     }
 
     private Consumer<TestResult> setStep(final TestMethod testMethod) {
@@ -416,20 +498,6 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
         };
     }
 
-    private Consumer<TestResult> setRecording(String UUID) {
-        return result -> {
-            Path recording = new File(videoBaseDirectory + "/" + UUID + ".mov").toPath();
-            if (recording.toFile().exists()) {
-                try (InputStream videoData = Files.newInputStream(recording)) {
-                    Allure.addAttachment("Recording." + UUID + ".mov",
-                            "video/quicktime", videoData, "mov");
-                } catch(Exception e){
-                    log.error("Exception when adding video to attachments {}",e.getMessage(),e);
-                }
-            }
-        };
-    }
-
     private Status getStepStatus(TestMethod testMethod){
         if(testMethod.isPassed()){
             return Status.PASSED;
@@ -450,6 +518,10 @@ public class AnaxAllureReporter implements AnaxTestReporter, ReporterSupportsScr
 
     @Override
     public void videoRecording(boolean enable, String videoBaseDirectory) {
+        if (enable && parallelThreads > 0 && "browser".equalsIgnoreCase(videoSource)) {
+            // the screenshots would be of the default controller, not of the browsers leased by the parallel Tests
+            throw new IllegalStateException("Cannot record the browser with anax.parallel.threads=" + parallelThreads + ", set anax.video.source=screen");
+        }
         this.videoEnable = enable;
         this.videoBaseDirectory = videoBaseDirectory;
     }
@@ -0,0 +1,117 @@
+package org.anax.framework.capture;
+
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Captures the browser instead of the screen, from the screenshots of the web driver. It needs no display, so it
+ * records headless browsers, in containers and on remote grids alike; only the page is recorded.
+ * <p>
+ * Screenshots are taken one at a time, in a single thread, as fast as the driver allows and up to the frames per
+ * second of the profile; a screenshot that fails is skipped. The driver is that of the Test and is not thread safe:
+ * the screenshots are to be taken between the commands of the Test, not alongside them, and not while an alert is open,
+ * which the driver would dismiss. Each one delays the next command of the Test, so keep the frames per second low. The frames are the size of the first screenshot, scaled,
+ * and later screenshots of another size, e.g. after the window was resized, are stretched to it. The frames go
+ * through the same pool and queue as the ones of a {@link ScreenCapture}.
+ */
+@Slf4j
+public class BrowserCapture extends ScreenCapture {
+
+    /** returns a PNG screenshot of the browser, null or empty if it cannot */
+    private final Callable<byte[]> screenshots;
+
+    /** the size of the last screenshot, its pixels and how they are sampled into a frame */
+    private Dimension sourceSize;
+    private int[] sourcePixels;
+    private int[] sourceColumns;
+    private int[] sourceRows;
+
+    /**
+     * @param screenshots takes a PNG screenshot of the browser, between the commands of the Test
+     * @param profile the frames per second, depth and scale to capture at
+     */
+    public BrowserCapture(Callable<byte[]> screenshots, CaptureProfile profile) {
+        super(profile, null);
+        this.screenshots = screenshots;
+    }
+
+    @Override
+    public void captureStart() {
+        BufferedImage first = takeScreenshot();
+        if (first == null) {
+            throw new IllegalStateException("Cannot take a browser screenshot to size the recording");
+        }
+        initFrames(new Dimension(first.getWidth(), first.getHeight()));
+        setPool(Executors.newSingleThreadScheduledExecutor());
+        capturing = true;
+        log.info("Capturing browser at size {}x{} and up to {} fps, {} bit",
+                getFrameSize().width, getFrameSize().height, getFps(), getDepth());
+        // at a fixed rate, a slow screenshot delays the next one rather than overlapping it
+        getPool().scheduleAtFixedRate(this::capture, 0, 1000 / getFps(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void captureEnd() {
+        super.captureEnd();
+        if (getPool() != null) {
+            getPool().shutdown();
+        }
+    }
+
+    private void capture() {
+        if (!capturing) return;
+        long time = System.currentTimeMillis();
+        BufferedImage frame = getFramePool().borrow();
+        if (frame == null) { // the consumer is behind, skip this frame rather than wait for it
+            droppedFrames.incrementAndGet();
+            return;
+        }
+        boolean queued = false;
+        try {
+            BufferedImage screenshot = takeScreenshot();
+            if (screenshot != null) {
+                toFrame(screenshot, frame);
+                queued = deliver(frame, time);
+            }
+        } catch (Exception e) {
+            log.error("Exception {}", e.getMessage());
+        } finally {
+            if (!queued) {
+                getFramePool().release(frame);
+            }
+        }
+    }
+
+    private void toFrame(BufferedImage screenshot, BufferedImage frame) {
+        int width = screenshot.getWidth();
+        int height = screenshot.getHeight();
+        if (sourceSize == null || sourceSize.width != width || sourceSize.height != height) {
+            sourceSize = new Dimension(width, height);
+            sourcePixels = new int[width * height];
+            sourceColumns = sampleStarts(width, getFrameSize().width);
+            sourceRows = sampleStarts(height, getFrameSize().height);
+        }
+        screenshot.getRGB(0, 0, width, height, sourcePixels, 0, width);
+        downsample(sourcePixels, width, sourceColumns, sourceRows, frame);
+    }
+
+    private BufferedImage takeScreenshot() {
+        try {
+            byte[] png = screenshots.call();
+            if (png == null || png.length == 0) {
+                return null;
+            }
+            return ImageIO.read(new ByteArrayInputStream(png));
+        } catch (Exception e) {
+            log.debug("Browser screenshot failed: {}", e.getMessage());
+            return null;
+        }
+    }
+}
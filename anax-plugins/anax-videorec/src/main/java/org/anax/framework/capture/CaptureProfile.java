@@ -0,0 +1,36 @@
+package org.anax.framework.capture;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * How the screen is recorded: the resolution, as a scale of the screen size, the frames per second and the color
+ * depth. A scaled down frame is downsampled in the capturing thread, before it is queued, so that the encoding and the
+ * movie only ever handle the smaller frames.
+ */
+@Getter
+@Builder
+@ToString
+public class CaptureProfile {
+
+    /** the screen as it is, 24 bit at 15 fps */
+    public static final CaptureProfile FULL = CaptureProfile.builder().build();
+
+    /** enough for failure triage: half the resolution, 24 bit at 8 fps, a quarter of the pixels of {@link #FULL} */
+    public static final CaptureProfile TRIAGE = CaptureProfile.builder().scale(0.5).framesPerSec(8).build();
+
+    /** {@link #TRIAGE} in 16 bit colors, two thirds of the bytes per pixel */
+    public static final CaptureProfile TRIAGE_16 = CaptureProfile.builder().scale(0.5).framesPerSec(8).depth(16).build();
+
+    /** the size of the frames relative to the screen, up to 1 */
+    @Builder.Default
+    private double scale = 1.0;
+
+    @Builder.Default
+    private int framesPerSec = 15;
+
+    /** 16 bit (RGB 555) or 24 bit */
+    @Builder.Default
+    private int depth = 24;
+}
@@ -0,0 +1,88 @@
+package org.anax.framework.capture;
+
+import org.springframework.core.io.ClassPathResource;
+
+import javax.imageio.ImageIO;
+import java.awt.Point;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Draws the mouse pointer onto the frames when they are encoded, where it was when each frame was captured, see
+ * {@link MouseCapture#getLocationAt(long)}. The cursor is blended into the pixels of the frame directly, in its depth,
+ * so no Graphics2D is created per frame and any number of encoding threads can draw at once.
+ */
+public class CursorOverlay {
+
+    private final MouseCapture mouseCapture;
+    /** the size of the frames relative to the screen */
+    private final double scale;
+    /** the cursor, ARGB */
+    private final int[] cursor;
+    private final int cursorWidth;
+    private final int cursorHeight;
+
+    /**
+     * @param mouseCapture the sampled pointer positions
+     * @param scale the size of the frames relative to the screen, see {@link CaptureProfile#getScale()}
+     * @throws IOException if the cursor image cannot be read
+     */
+    public CursorOverlay(MouseCapture mouseCapture, double scale) throws IOException {
+        this.mouseCapture = mouseCapture;
+        this.scale = scale;
+        BufferedImage image;
+        try (InputStream in = new ClassPathResource("Cursor.white.png").getInputStream()) {
+            image = ImageIO.read(in);
+        }
+        this.cursorWidth = image.getWidth();
+        this.cursorHeight = image.getHeight();
+        this.cursor = image.getRGB(0, 0, cursorWidth, cursorHeight, null, 0, cursorWidth);
+    }
+
+    /**
+     * Draws the pointer onto a frame, an int RGB or a ushort RGB 555 image
+     * @param frame the frame
+     * @param time the time the frame was captured
+     */
+    public void draw(BufferedImage frame, long time) {
+        Point location = mouseCapture.getLocationAt(time);
+        if (location == null) {
+            return;
+        }
+        int width = frame.getWidth();
+        int height = frame.getHeight();
+        int left = (int) (location.x * scale);
+        int top = (int) (location.y * scale);
+        DataBuffer buffer = frame.getRaster().getDataBuffer();
+        int[] rgb = buffer instanceof DataBufferInt ? ((DataBufferInt) buffer).getData() : null;
+        short[] rgb555 = buffer instanceof DataBufferUShort ? ((DataBufferUShort) buffer).getData() : null;
+        for (int cy = 0, y = top; cy < cursorHeight && y < height; cy++, y++) {
+            if (y < 0) continue;
+            for (int cx = 0, x = left; cx < cursorWidth && x < width; cx++, x++) {
+                int argb = cursor[cy * cursorWidth + cx];
+                int alpha = argb >>> 24;
+                if (x < 0 || alpha == 0) continue;
+                int xy = y * width + x;
+                if (rgb != null) {
+                    rgb[xy] = blend(argb, rgb[xy], alpha);
+                } else if (rgb555 != null) {
+                    int pixel = rgb555[xy];
+                    int under = ((pixel >> 10 & 0x1f) << 19) | ((pixel >> 5 & 0x1f) << 11) | ((pixel & 0x1f) << 3);
+                    int blended = blend(argb, under, alpha);
+                    rgb555[xy] = (short) (((blended >> 19 & 0x1f) << 10) | ((blended >> 11 & 0x1f) << 5) | (blended >> 3 & 0x1f));
+                }
+            }
+        }
+    }
+
+    private static int blend(int over, int under, int alpha) {
+        int r = ((over >> 16 & 0xff) * alpha + (under >> 16 & 0xff) * (255 - alpha)) / 255;
+        int g = ((over >> 8 & 0xff) * alpha + (under >> 8 & 0xff) * (255 - alpha)) / 255;
+        int b = ((over & 0xff) * alpha + (under & 0xff) * (255 - alpha)) / 255;
+        return (r << 16) | (g << 8) | b;
+    }
+}
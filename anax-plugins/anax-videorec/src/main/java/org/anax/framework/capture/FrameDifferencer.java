@@ -0,0 +1,149 @@
+package org.anax.framework.capture;
+
+import lombok.Getter;
+
+import java.awt.Rectangle;
+
+/**
+ * Compares screen frames against a reference frame, the previous one, in square tiles. A tile is dirty as soon as one
+ * of its pixels differs, so an unchanged screen costs one pass over its pixels and a changed one less. The bounds of
+ * the dirty tiles let the RLE delta encoding skip the unchanged lines without comparing them again.
+ * <p>
+ * A 24 bit frame has one int per pixel, a 16 bit one, in RGB 555, one short.
+ */
+public class FrameDifferencer {
+
+    public static final int TILE_SIZE = 32;
+
+    @Getter private final int width;
+    @Getter private final int height;
+    private final int tileSize;
+
+    /** the frame the next one is compared against, in 24 bit or in 16 bit */
+    @Getter private final int[] reference;
+    @Getter private final short[] shortReference;
+    /** the number of dirty tiles of the last comparison */
+    @Getter private int dirtyTiles;
+
+    public FrameDifferencer(int width, int height) {
+        this(width, height, TILE_SIZE);
+    }
+
+    public FrameDifferencer(int width, int height, int tileSize) {
+        this(width, height, tileSize, 24);
+    }
+
+    /**
+     * @param width the width of the frames
+     * @param height the height of the frames
+     * @param tileSize the size of the compared tiles
+     * @param depth 24 for frames of ints, 16 for frames of shorts
+     */
+    public FrameDifferencer(int width, int height, int tileSize, int depth) {
+        this.width = width;
+        this.height = height;
+        this.tileSize = tileSize;
+        this.reference = depth >= 24 ? new int[width * height] : null;
+        this.shortReference = depth >= 24 ? null : new short[width * height];
+    }
+
+    /**
+     * @param pixels a frame of the same size, one int per pixel, scanline after scanline
+     * @return the bounds of the tiles that differ from the reference, empty if none
+     */
+    public Rectangle compare(int[] pixels) {
+        return compare((tx, ty, tw, th) -> isTileDirty(pixels, tx, ty, tw, th));
+    }
+
+    /**
+     * @param pixels a 16 bit frame of the same size, one short per pixel, scanline after scanline
+     * @return the bounds of the tiles that differ from the reference, empty if none
+     */
+    public Rectangle compare(short[] pixels) {
+        return compare((tx, ty, tw, th) -> isTileDirty(pixels, tx, ty, tw, th));
+    }
+
+    private Rectangle compare(TileComparison tiles) {
+        Rectangle dirty = new Rectangle();
+        dirtyTiles = 0;
+        for (int ty = 0; ty < height; ty += tileSize) {
+            int th = Math.min(tileSize, height - ty);
+            for (int tx = 0; tx < width; tx += tileSize) {
+                int tw = Math.min(tileSize, width - tx);
+                if (tiles.isDirty(tx, ty, tw, th)) {
+                    dirtyTiles++;
+                    if (dirty.isEmpty()) {
+                        dirty.setBounds(tx, ty, tw, th);
+                    } else {
+                        dirty.add(new Rectangle(tx, ty, tw, th));
+                    }
+                }
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Copies a region of a frame into the reference, after it has been encoded
+     * @param pixels the frame
+     * @param region the region to copy, usually the result of {@link #compare(int[])}
+     */
+    public void update(int[] pixels, Rectangle region) {
+        for (int y = region.y; y < region.y + region.height; y++) {
+            System.arraycopy(pixels, y * width + region.x, reference, y * width + region.x, region.width);
+        }
+    }
+
+    /**
+     * Copies a whole frame into the reference, after it has been encoded as a key frame
+     * @param pixels the frame
+     */
+    public void update(int[] pixels) {
+        System.arraycopy(pixels, 0, reference, 0, reference.length);
+    }
+
+    /**
+     * Copies a region of a 16 bit frame into the reference, after it has been encoded
+     * @param pixels the frame
+     * @param region the region to copy, usually the result of {@link #compare(short[])}
+     */
+    public void update(short[] pixels, Rectangle region) {
+        for (int y = region.y; y < region.y + region.height; y++) {
+            System.arraycopy(pixels, y * width + region.x, shortReference, y * width + region.x, region.width);
+        }
+    }
+
+    /**
+     * Copies a whole 16 bit frame into the reference, after it has been encoded as a key frame
+     * @param pixels the frame
+     */
+    public void update(short[] pixels) {
+        System.arraycopy(pixels, 0, shortReference, 0, shortReference.length);
+    }
+
+    private boolean isTileDirty(int[] pixels, int tx, int ty, int tw, int th) {
+        for (int y = ty; y < ty + th; y++) {
+            for (int xy = y * width + tx, end = xy + tw; xy < end; xy++) {
+                if (pixels[xy] != reference[xy]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private boolean isTileDirty(short[] pixels, int tx, int ty, int tw, int th) {
+        for (int y = ty; y < ty + th; y++) {
+            for (int xy = y * width + tx, end = xy + tw; xy < end; xy++) {
+                if (pixels[xy] != shortReference[xy]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private interface TileComparison {
+        boolean isDirty(int tx, int ty, int tw, int th);
+    }
+}
@@ -0,0 +1,54 @@
+package org.anax.framework.capture;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * A fixed-size pool of recycled frames, so that capturing allocates no pixels once the pool is warm. Frames are
+ * allocated on demand up to the capacity of the pool; when all of them are borrowed, {@link #borrow()} returns null
+ * instead of waiting, and the capture drops the frame.
+ */
+class FramePool {
+
+    private final int capacity;
+    private final Supplier<BufferedImage> factory;
+    private final BlockingQueue<BufferedImage> free;
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    FramePool(int capacity, Supplier<BufferedImage> factory) {
+        this.capacity = capacity;
+        this.factory = factory;
+        this.free = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * @return a free frame, null if all the frames of the pool are borrowed
+     */
+    BufferedImage borrow() {
+        BufferedImage frame = free.poll();
+        if (frame == null) {
+            if (allocated.incrementAndGet() <= capacity) {
+                return factory.get();
+            }
+            allocated.decrementAndGet();
+        }
+        return frame;
+    }
+
+    /**
+     * @param frame a frame borrowed from this pool, no longer used
+     */
+    void release(BufferedImage frame) {
+        free.offer(frame);
+    }
+
+    /**
+     * @return the number of frames allocated so far
+     */
+    int getAllocated() {
+        return Math.min(allocated.get(), capacity);
+    }
+}
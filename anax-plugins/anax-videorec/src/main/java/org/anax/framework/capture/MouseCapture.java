@@ -1,43 +1,52 @@
 package org.anax.framework.capture;
 
-import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import java.awt.*;
-import java.util.List;
-import java.util.Queue;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 
 /**
  * configure and capture mouse movement in a screen
+ * <p>
+ * The pointer positions are sampled into a ring of the last {@link #POSITIONS} positions, with their time; the oldest
+ * position is overwritten, never dropped from the newest end. The sampling thread is the only writer and readers take
+ * no lock, so any number of threads can ask where the pointer was at a time, see {@link #getLocationAt(long)}.
  */
 @Data
 @Builder
 @Slf4j
 public class MouseCapture implements Capture {
 
+    /** the number of pointer positions kept, a power of two */
+    public static final int POSITIONS = 1024;
 
     @Builder.Default
     private int captureDelayMs = 1000/10; //10 fps
 
-    @Builder.Default
-    private Queue<MouseMovement> trackedMovements = new ArrayBlockingQueue<MouseMovement>(1000);
-
     @Builder.Default
     private ScheduledExecutorService threadpool = Executors.newScheduledThreadPool(1);
 
+    /** the time and the location, x in the high int and y in the low one, of each position in the ring */
+    private final AtomicLongArray times = new AtomicLongArray(POSITIONS);
+    private final AtomicLongArray locations = new AtomicLongArray(POSITIONS);
+    /** the number of positions sampled so far, published after the position */
+    private final AtomicLong sampled = new AtomicLong();
+
 
     public void captureStart() {
         log.info("Capturing movement at {}ms.",captureDelayMs);
         threadpool.scheduleAtFixedRate(() -> {
             long now = System.currentTimeMillis();
             PointerInfo info = MouseInfo.getPointerInfo();
-            trackedMovements.offer(new MouseMovement(info.getLocation(), now));
-            log.trace("Movement captured at point {}",info.getLocation());
+            if (info != null) {
+                record(info.getLocation(), now);
+                log.trace("Movement captured at point {}",info.getLocation());
+            }
         }, 0, captureDelayMs, TimeUnit.MILLISECONDS);
     }
 
@@ -46,12 +55,59 @@ public class MouseCapture implements Capture {
         threadpool.shutdownNow();
     }
 
+    /**
+     * Returns where the pointer was at a time, interpolated between the positions sampled before and after it
+     * @param time a time, in milliseconds
+     * @return the location, the oldest or the newest one kept if the time is out of the ring, null if none was sampled
+     */
+    public Point getLocationAt(long time) {
+        long count = sampled.get();
+        boolean found = false;
+        long laterTime = 0;
+        long laterLocation = 0;
+        for (long i = count - 1; i >= 0 && i > count - POSITIONS; i--) {
+            int slot = (int) (i & (POSITIONS - 1));
+            long sampleTime = times.get(slot);
+            long location = locations.get(slot);
+            if (sampled.get() - i >= POSITIONS) {
+                break; // overwritten while read, the older ones too
+            }
+            if (sampleTime <= time) {
+                if (!found) {
+                    return toPoint(location); // the newest one
+                }
+                double fraction = (double) (time - sampleTime) / (laterTime - sampleTime);
+                return new Point(interpolate(x(location), x(laterLocation), fraction), interpolate(y(location), y(laterLocation), fraction));
+            }
+            found = true;
+            laterTime = sampleTime;
+            laterLocation = location;
+        }
+        return found ? toPoint(laterLocation) : null;
+    }
+
+    /** appends a position, in the sampling thread */
+    void record(Point location, long time) {
+        long count = sampled.get();
+        int slot = (int) (count & (POSITIONS - 1));
+        times.set(slot, time);
+        locations.set(slot, ((long) location.x << 32) | (location.y & 0xffffffffL));
+        sampled.set(count + 1);
+    }
 
-    @AllArgsConstructor
-    @Getter
-    class MouseMovement {
-        private Point location;
-        private long time;
+    private static int interpolate(int from, int to, double fraction) {
+        return (int) Math.round(from + (to - from) * fraction);
     }
 
+    private static int x(long location) {
+        return (int) (location >> 32);
+    }
+
+    private static int y(long location) {
+        return (int) location;
+    }
+
+    private static Point toPoint(long location) {
+        return new Point(x(location), y(location));
+    }
 }
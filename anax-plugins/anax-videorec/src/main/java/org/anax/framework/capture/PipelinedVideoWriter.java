@@ -0,0 +1,293 @@
+package org.anax.framework.capture;
+
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.capture.qt.AppleRLEEncoder;
+import org.anax.framework.capture.qt.QuickTimeWriter;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes frames into an Apple RLE video track of a {@link QuickTimeWriter}, encoding them in parallel. Frames are
+ * grouped in GOPs, a key frame followed by deltas; each GOP is encoded by one worker, with its own encoder and previous
+ * frame, and a single sequencer thread appends the encoded GOPs to the movie in the order the frames were written.
+ * <p>
+ * A frame is released, through the callback given with it, as soon as it has been encoded. If a cursor is set, it is
+ * drawn onto each frame by the worker that encodes it, where the pointer was when the frame was captured.
+ * <p>
+ * The frames may be written in segments, movies of a number of GOPs each: the sequencer closes a segment, which writes
+ * its sample tables, and opens the next one between two GOPs. Every segment starts with a key frame and is playable on
+ * its own, and the sample tables held in memory are those of one segment only.
+ */
+@Slf4j
+public class PipelinedVideoWriter {
+
+    private final SegmentFactory segments;
+    private final int segmentGops;
+    /** the movie being written, changed by the sequencer only; null if the next segment could not be opened */
+    private volatile QuickTimeWriter writer;
+    private int segment;
+    private int segmentGopCount;
+    private final int track;
+    private final int depth;
+    private final int gopSize;
+
+    private final ExecutorService encoders;
+    /** a single thread, hence runs the appends in the order they were submitted */
+    private final ExecutorService sequencer;
+    private final ThreadLocal<AppleRLEEncoder> encoder = ThreadLocal.withInitial(AppleRLEEncoder::new);
+    private final ThreadLocal<int[]> previous = new ThreadLocal<>();
+    private final ThreadLocal<short[]> previous16 = new ThreadLocal<>();
+    /** draws the mouse pointer onto the frames before they are encoded, null for none */
+    private volatile CursorOverlay cursor;
+
+    private List<PendingFrame> gop = new ArrayList<>();
+    private final AtomicLong writtenFrames = new AtomicLong();
+    private final AtomicLong lostFrames = new AtomicLong();
+
+    /**
+     * @param writer the movie, with an RLE video track
+     * @param track the track index
+     * @param depth the depth of the track, 16, 24 or 32
+     * @param gopSize the frames per GOP, the first one being a key frame
+     * @param threads the number of encoding workers
+     */
+    public PipelinedVideoWriter(QuickTimeWriter writer, int track, int depth, int gopSize, int threads) {
+        this(writer, segment -> writer, 0, track, depth, gopSize, threads);
+    }
+
+    /**
+     * @param segments opens the movie of each segment, with an RLE video track
+     * @param segmentGops the GOPs per segment, 0 to write a single movie
+     * @param track the track index
+     * @param depth the depth of the track, 16, 24 or 32
+     * @param gopSize the frames per GOP, the first one being a key frame
+     * @param threads the number of encoding workers
+     * @throws IOException if the first segment cannot be opened
+     */
+    public PipelinedVideoWriter(SegmentFactory segments, int segmentGops, int track, int depth, int gopSize, int threads) throws IOException {
+        this(segments.open(0), segments, segmentGops, track, depth, gopSize, threads);
+    }
+
+    private PipelinedVideoWriter(QuickTimeWriter writer, SegmentFactory segments, int segmentGops, int track, int depth, int gopSize, int threads) {
+        if (depth != 16 && depth != 24 && depth != 32) {
+            throw new IllegalArgumentException("Cannot encode depth other than 16, 24, 32 bit in parallel");
+        }
+        this.writer = writer;
+        this.segments = segments;
+        this.segmentGops = segmentGops;
+        this.track = track;
+        this.depth = depth;
+        this.gopSize = Math.max(1, gopSize);
+        this.encoders = Executors.newFixedThreadPool(Math.max(1, threads), daemonThreads("video-encoder"));
+        this.sequencer = Executors.newSingleThreadExecutor(daemonThreads("video-sequencer"));
+    }
+
+    /**
+     * Queues a frame, in timestamp order, for encoding
+     * @param image the frame, an int packed image, or a ushort RGB 555 one for 16 bit, not modified until released
+     * @param time the time the frame was captured, where the cursor is drawn
+     * @param duration the duration of the frame in media time scale units
+     * @param release called once the frame has been encoded, or dropped
+     */
+    public synchronized void writeFrame(BufferedImage image, long time, long duration, Runnable release) {
+        gop.add(new PendingFrame(image, time, duration, release));
+        if (gop.size() >= gopSize) {
+            submitGop();
+        }
+    }
+
+    /**
+     * Encodes and appends the queued frames, then stops the workers. The last movie is left open, see
+     * {@link #getWriter()}.
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public synchronized void finish() throws InterruptedException {
+        if (!gop.isEmpty()) {
+            submitGop();
+        }
+        sequencer.shutdown();
+        while (!sequencer.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.info("waiting for video encoding to finish");
+        }
+        encoders.shutdown();
+        log.info("Video encoding complete, {} frames written in {} segments, {} lost", writtenFrames.get(), segment + 1, lostFrames.get());
+    }
+
+    /**
+     * @param cursor draws the mouse pointer onto the frames written from now on, null for none
+     */
+    public void setCursor(CursorOverlay cursor) {
+        this.cursor = cursor;
+    }
+
+    /**
+     * @return the movie being written, the last one once finished; null if it could not be opened
+     */
+    public QuickTimeWriter getWriter() {
+        return writer;
+    }
+
+    /**
+     * @return the number of segments opened so far
+     */
+    public int getSegments() {
+        return segment + 1;
+    }
+
+    private void submitGop() {
+        final List<PendingFrame> frames = gop;
+        gop = new ArrayList<>(gopSize);
+        final Future<List<EncodedSample>> encoded = encoders.submit(() -> encode(frames));
+        sequencer.submit(() -> {
+            try {
+                List<EncodedSample> samples = encoded.get();
+                if (writer == null || (segmentGops > 0 && segmentGopCount >= segmentGops)) {
+                    nextSegment();
+                }
+                for (EncodedSample sample : samples) {
+                    writer.writeSample(track, sample.data, sample.duration, sample.sync);
+                }
+                segmentGopCount++;
+                writtenFrames.addAndGet(frames.size());
+            } catch (IOException | ExecutionException e) {
+                // the next GOP starts with a key frame, the movie stays decodable
+                log.error("Exception {} while writing captured video - {} frames lost", e.getMessage(), frames.size());
+                lostFrames.addAndGet(frames.size());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+    }
+
+    /** closes the movie being written and opens the next segment, in the sequencer */
+    private void nextSegment() throws IOException {
+        QuickTimeWriter finished = writer;
+        writer = null;
+        segmentGopCount = 0;
+        if (finished != null) {
+            finished.close();
+            log.info("Video segment {} complete", segment + 1);
+        }
+        writer = segments.open(++segment);
+    }
+
+    private List<EncodedSample> encode(List<PendingFrame> frames) throws IOException {
+        AppleRLEEncoder enc = encoder.get();
+        CursorOverlay overlay = cursor;
+        List<EncodedSample> samples = new ArrayList<>(frames.size());
+        int released = 0;
+        try {
+            for (PendingFrame frame : frames) {
+                boolean key = samples.isEmpty();
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                if (overlay != null) {
+                    overlay.draw(frame.image, frame.time);
+                }
+                if (depth == 16) {
+                    encodeFrame16(enc, frame.image, key, out);
+                } else {
+                    encodeFrame(enc, frame.image, key, out);
+                }
+                released++;
+                frame.release.run();
+                samples.add(new EncodedSample(out.toByteArray(), frame.duration, key));
+            }
+        } finally {
+            for (int i = released; i < frames.size(); i++) {
+                frames.get(i).release.run();
+            }
+        }
+        return samples;
+    }
+
+    private void encodeFrame(AppleRLEEncoder enc, BufferedImage image, boolean key, OutputStream out) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[] prev = previous.get();
+        if (key && depth == 24) {
+            enc.writeKey24(out, data, width, height, 0, width);
+        } else if (key) {
+            enc.writeKey32(out, data, width, height, 0, width);
+        } else if (depth == 24) {
+            enc.writeDelta24(out, data, prev, width, height, 0, width);
+        } else {
+            enc.writeDelta32(out, data, prev, width, height, 0, width);
+        }
+        if (prev == null || prev.length != data.length) {
+            prev = new int[data.length];
+            previous.set(prev);
+        }
+        System.arraycopy(data, 0, prev, 0, data.length);
+    }
+
+    private void encodeFrame16(AppleRLEEncoder enc, BufferedImage image, boolean key, OutputStream out) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        short[] data = ((DataBufferUShort) image.getRaster().getDataBuffer()).getData();
+        short[] prev = previous16.get();
+        if (key) {
+            enc.writeKey16(out, data, width, height, 0, width);
+        } else {
+            enc.writeDelta16(out, data, prev, width, height, 0, width);
+        }
+        if (prev == null || prev.length != data.length) {
+            prev = new short[data.length];
+            previous16.set(prev);
+        }
+        System.arraycopy(data, 0, prev, 0, data.length);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        AtomicInteger count = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Opens the movie of a segment
+     */
+    @FunctionalInterface
+    public interface SegmentFactory {
+        /**
+         * @param segment the index of the segment, from 0
+         * @return the movie, with the RLE video track to write
+         * @throws IOException if the movie cannot be opened
+         */
+        QuickTimeWriter open(int segment) throws IOException;
+    }
+
+    @AllArgsConstructor
+    private static class PendingFrame {
+        private final BufferedImage image;
+        private final long time;
+        private final long duration;
+        private final Runnable release;
+    }
+
+    @AllArgsConstructor
+    private static class EncodedSample {
+        private final byte[] data;
+        private final long duration;
+        private final boolean sync;
+    }
+}
@@ -5,17 +5,15 @@ import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.anax.framework.capture.direct.DirectRobot;
-import org.springframework.core.io.ClassPathResource;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.*;
-import java.io.IOException;
 import java.util.Hashtable;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Getter @Setter
 @Slf4j
@@ -25,13 +23,19 @@ public class ScreenCapture implements Capture {
 
     private int bufferSeconds = 360; // 6minutes
 
-    private ThreadLocal<int[]> localScreenPixels;
+    /** the number of frames captured but not yet released, 0 for one second of frames */
+    private int poolSize;
+
+    private FramePool framePool;
+
+    final AtomicLong droppedFrames = new AtomicLong();
 
 
     private ArrayBlockingQueue<Screenshot> trackedScreens;
 
     private ScheduledExecutorService pool;
 
+    /** the mouse movements, drawn when the frames are encoded, see {@link CursorOverlay} */
     private MouseCapture mouseCapture;
 
     private DirectRobot[] robots;
@@ -39,15 +43,21 @@ public class ScreenCapture implements Capture {
     private int depth = 24;
     private Rectangle rect;
 
+    /** the size of the frames relative to the screen, up to 1 */
+    private double scale = 1.0;
+    /** the size of the captured frames, the screen scaled */
+    private Dimension frameSize;
+    /** the first screen column and row of each frame column and row, then the screen size */
+    private int[] columnStart;
+    private int[] rowStart;
+    /** the full size screen of each capturing thread, downsampled into the frame */
+    private final ThreadLocal<int[]> screenPixels = ThreadLocal.withInitial(() -> new int[rect.width * rect.height]);
+
 
     private int fpsPerThread; //calculated later
     private int threads;
 
-    private Cursor cursor;
-    private BufferedImage cursorImg;
-
     private long time;
-    private GraphicsEnvironment env;
 
     public ScreenCapture(int fps, MouseCapture mouseCapture, int depth) {
         this.fps = fps;
@@ -60,10 +70,20 @@ public class ScreenCapture implements Capture {
         this.depth = depth;
     }
 
+    /**
+     * @param profile the frames per second, depth and scale to capture at
+     * @param mouseCapture the mouse movements to draw, null for none
+     */
+    public ScreenCapture(CaptureProfile profile, MouseCapture mouseCapture) {
+        this.fps = profile.getFramesPerSec();
+        this.depth = profile.getDepth();
+        this.scale = profile.getScale();
+        this.mouseCapture = mouseCapture;
+    }
+
     private void init() {
         Window window = new Window(null);
         GraphicsConfiguration cfg = window.getGraphicsConfiguration();
-        env = GraphicsEnvironment.getLocalGraphicsEnvironment();
         //lets calculate the threads needed: 6 FPS per thread is a good value
         threads = (int) Math.ceil(fps / 6.0);
         fpsPerThread = (int) ((double) fps / (double) threads);
@@ -76,30 +96,37 @@ public class ScreenCapture implements Capture {
                 robots[i] = (new DirectRobot(cfg.getDevice()));
             }
             rect = cfg.getBounds();
-            ClassPathResource resource = new ClassPathResource("Cursor.white.png");
-            cursorImg = ImageIO.read(resource.getInputStream());
-        } catch (IOException ioe) {
-            log.error("IO Exception {} ",ioe.getMessage(), ioe);
         } catch (AWTException awt) {
             log.error("AWT Exception {} ",awt.getMessage(), awt);
         } finally {
             if (window != null)
                 window.dispose();
         }
+        initFrames(rect.getSize());
+        columnStart = sampleStarts(rect.width, frameSize.width);
+        rowStart = sampleStarts(rect.height, frameSize.height);
+    }
+
+    /**
+     * Sets up the frames, of the source scaled, and the buffers they go through
+     * @param sourceSize the size of the captured source, the screen
+     */
+    protected void initFrames(Dimension sourceSize) {
+        if (scale <= 0 || scale > 1) {
+            throw new IllegalArgumentException("Cannot capture at a scale of " + scale + ", expected more than 0 and up to 1");
+        }
+        frameSize = new Dimension(Math.max(1, (int) Math.round(sourceSize.width * scale)), Math.max(1, (int) Math.round(sourceSize.height * scale)));
+
         // setup a buffer for us
         if (trackedScreens == null) {
             trackedScreens = new ArrayBlockingQueue<>(fps * bufferSeconds);
             log.info("Allocating buffer for {} seconds [{} frames]", bufferSeconds, trackedScreens.remainingCapacity());
         }
 
-        if (localScreenPixels == null) {
-            localScreenPixels = ThreadLocal.withInitial(() -> new int[rect.width*rect.height]);
-        }
-
         switch (depth) {
             case 16: {
-                throw new IllegalArgumentException("Cannot process 16 bit images at the moment. Sorry");
-//model = new DirectColorModel(16, 0x7C00, 0x3E0, 0x1F);
+                model = new DirectColorModel(16, 0x7C00, 0x3E0, 0x1F);
+                break;
             }
             case 24: {
                 model = new DirectColorModel(24, 0xff00, 0xff00, 0xff, 0xff0000);
@@ -111,6 +138,9 @@ public class ScreenCapture implements Capture {
             }
         }
 
+        if (framePool == null) {
+            framePool = new FramePool(poolSize > 0 ? poolSize : fps, this::createFrame);
+        }
     }
 
     ColorModel model;
@@ -119,68 +149,141 @@ public class ScreenCapture implements Capture {
 
     public void captureStart() {
         init();
-        log.info("Capturing video at size {}x{} and {} fps ({}ms, {} fps/thread)",
-                rect.width, rect.height, fps, (1000.0 / fps), fpsPerThread);
+        log.info("Capturing video at size {}x{} and {} fps ({}ms, {} fps/thread), {} bit",
+                frameSize.width, frameSize.height, fps, (1000.0 / fps), fpsPerThread, depth);
 
         for (int i = 0; i < threads; i++) {
             final DirectRobot robot = robots[i];
             pool.scheduleAtFixedRate(() -> {
                 if (!capturing) return;
-                long t0 = System.currentTimeMillis();
+                BufferedImage screenCapture = framePool.borrow();
+                if (screenCapture == null) { // the consumer is behind, skip this frame rather than wait for it
+                    droppedFrames.incrementAndGet();
+                    return;
+                }
+                boolean queued = false;
                 try {
-                    BufferedImage screenCapture = grabSnapshotDirect(robot);
-                    if (mouseCapture != null)
-                        drawMousePointer(t0, screenCapture);
-                    trackedScreens.offer(new Screenshot(screenCapture, System.currentTimeMillis()));//add time of capture
+                    if (depth == 16 || frameSize.width != rect.width || frameSize.height != rect.height) {
+                        grabSnapshotScaled(robot, screenCapture);
+                    } else {
+                        grabSnapshotDirect(robot, screenCapture);
+                    }
+                    queued = deliver(screenCapture, System.currentTimeMillis());//add time of capture
                 } catch (Exception e) {
                     log.error("Exception {}", e.getMessage());
+                } finally {
+                    if (!queued) {
+                        framePool.release(screenCapture);
+                    }
                 }
-                long t1 = System.currentTimeMillis();
 
             }, fractionToNanos(i, threads), fractionToNanos(1, fpsPerThread), TimeUnit.NANOSECONDS);
         }
     }
 
+    /**
+     * Queues a captured frame in the tracked screens
+     * @param frame a frame borrowed from the frame pool
+     * @param time the time of capture
+     * @return true if the frame was queued, to be released by the consumer of the tracked screens; false if it can be
+     * released now
+     */
+    protected boolean deliver(BufferedImage frame, long time) {
+        Screenshot screenshot = new Screenshot(frame, time);
+        if (trackedScreens.offer(screenshot)) { // released by the consumer
+            return true;
+        }
+        droppedFrames.incrementAndGet();
+        return false;
+    }
+
     final static long toNanos = 1000_000_000L;
 
     private static long fractionToNanos(long a, long b) {
         return a * toNanos / b;
     }
 
-    private BufferedImage grabSnapshotDirect(DirectRobot robot) {
-        robot.getRGBPixels(0,0,rect.width,rect.height, localScreenPixels.get());
-        if (depth >= 24) {
-            return new BufferedImage(model, Raster.createWritableRaster(
-                    model.createCompatibleSampleModel(rect.width, rect.height),
-                    new DataBufferInt(localScreenPixels.get(), rect.width * rect.height), null), false, new Hashtable<Object, Object>());
-        } else {
-            throw new IllegalArgumentException("Cannot process 16 bit images at the moment. Sorry");
-        }
+    /**
+     * Returns a frame taken from the tracked screens to the pool, once it has been written
+     * @param screenshot the frame
+     */
+    public void release(Screenshot screenshot) {
+        framePool.release(screenshot.getScreenshot());
+    }
+
+    /**
+     * @return the frames not captured or not queued because the consumer was behind
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    private BufferedImage createFrame() {
+        int pixels = frameSize.width * frameSize.height;
+        return new BufferedImage(model, Raster.createWritableRaster(
+                model.createCompatibleSampleModel(frameSize.width, frameSize.height),
+                depth >= 24 ? new DataBufferInt(pixels) : new DataBufferUShort(pixels), null), false, new Hashtable<Object, Object>());
     }
 
-    private void drawMousePointer(long now, BufferedImage captured) {
-        Graphics2D videoGraphics = env.createGraphics(captured);
-
-        videoGraphics.setRenderingHint(RenderingHints.KEY_DITHERING,
-                RenderingHints.VALUE_DITHER_DISABLE);
-        videoGraphics.setRenderingHint(RenderingHints.KEY_COLOR_RENDERING,
-                RenderingHints.VALUE_COLOR_RENDER_SPEED);
-        videoGraphics.setRenderingHint(RenderingHints.KEY_RENDERING,
-                RenderingHints.VALUE_RENDER_SPEED);
-
-        MouseCapture.MouseMovement mv = mouseCapture.getTrackedMovements().peek();
-        while (mv != null) {
-            MouseCapture.MouseMovement pc = mouseCapture.getTrackedMovements().remove();
-            Point p = pc.getLocation();
-            if ((lastLocation != null) && (lastLocation.distance(p) > 2)) { // more than 2px
-                videoGraphics.drawImage(cursorImg, p.x, p.y, null);
+    private void grabSnapshotDirect(DirectRobot robot, BufferedImage frame) {
+        robot.getRGBPixels(0,0,rect.width,rect.height, ((DataBufferInt) frame.getRaster().getDataBuffer()).getData());
+    }
+
+    /** grabs the screen at full size, then downsamples it into the frame */
+    private void grabSnapshotScaled(DirectRobot robot, BufferedImage frame) {
+        int[] screen = screenPixels.get();
+        robot.getRGBPixels(0, 0, rect.width, rect.height, screen);
+        downsample(screen, rect.width, columnStart, rowStart, frame);
+    }
+
+    /**
+     * Averages each box of source pixels into a pixel of the frame, in the depth of the frame
+     * @param source the source pixels, RGB
+     * @param sourceWidth the width of the source
+     * @param columnStart the first source column of each frame column, then the source width, see {@link #sampleStarts(int, int)}
+     * @param rowStart the first source row of each frame row, then the source height
+     * @param frame a frame of the frame pool
+     */
+    protected void downsample(int[] source, int sourceWidth, int[] columnStart, int[] rowStart, BufferedImage frame) {
+        DataBuffer buffer = frame.getRaster().getDataBuffer();
+        int[] rgb = depth >= 24 ? ((DataBufferInt) buffer).getData() : null;
+        short[] rgb555 = depth >= 24 ? null : ((DataBufferUShort) buffer).getData();
+        for (int y = 0, xy = 0; y < frameSize.height; y++) {
+            int y0 = rowStart[y];
+            int y1 = Math.max(rowStart[y + 1], y0 + 1); // a source smaller than the frame is stretched
+            for (int x = 0; x < frameSize.width; x++, xy++) {
+                int x0 = columnStart[x];
+                int x1 = Math.max(columnStart[x + 1], x0 + 1);
+                int r = 0, g = 0, b = 0;
+                for (int sy = y0; sy < y1; sy++) {
+                    for (int sxy = sy * sourceWidth + x0, end = sy * sourceWidth + x1; sxy < end; sxy++) {
+                        int pixel = source[sxy];
+                        r += (pixel >> 16) & 0xff;
+                        g += (pixel >> 8) & 0xff;
+                        b += pixel & 0xff;
+                    }
+                }
+                int count = (y1 - y0) * (x1 - x0);
+                r /= count;
+                g /= count;
+                b /= count;
+                if (rgb != null) {
+                    rgb[xy] = (r << 16) | (g << 8) | b;
+                } else {
+                    rgb555[xy] = (short) (((r >> 3) << 10) | ((g >> 3) << 5) | (b >> 3));
+                }
             }
-            lastLocation = p;
-            mv = mouseCapture.getTrackedMovements().peek();
         }
     }
 
-    private Point lastLocation = null;
+    /** the first of the source pixels sampled into each frame pixel, along one axis, then the source size */
+    protected static int[] sampleStarts(int sourceSize, int frameSize) {
+        int[] starts = new int[frameSize + 1];
+        for (int i = 0; i <= frameSize; i++) {
+            starts[i] = (int) ((long) i * sourceSize / frameSize);
+        }
+        return starts;
+    }
 
     public void captureEnd() {
         if (mouseCapture != null)
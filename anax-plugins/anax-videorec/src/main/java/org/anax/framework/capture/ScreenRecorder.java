@@ -0,0 +1,503 @@
+package org.anax.framework.capture;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.capture.qt.AppleRLEEncoder;
+import org.anax.framework.capture.qt.QuickTimeWriter;
+import org.springframework.util.Assert;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.DataBufferUShort;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * A long-lived screen recorder that keeps the last seconds of the screen in a ring buffer, encoded as Apple RLE, and
+ * writes a clip of them only when asked to, i.e. when a test fails. Recording costs nothing at the end of a passing
+ * test, unlike a {@link VideoMaker} per test.
+ * <p>
+ * Each frame is compared in tiles against the previous one, see {@link FrameDifferencer}: an unchanged frame is not
+ * kept at all, the previous one lasts longer, and a changed one is kept as an RLE delta of its dirty region. A key
+ * frame is kept every {@link #KEY_FRAME_MILLIS}, so that a clip can start close to any time.
+ * <p>
+ * The capturing threads only grab the screen and queue the frames; a single encoder thread compares and encodes them,
+ * in the order they were queued, and returns them to the frame pool. Each delta depends on the frame before it, so
+ * the frames are encoded one at a time, but never in the capturing threads: a slow frame delays the encoding, not the
+ * next capture, and when the encoder falls behind the pool runs out and frames are dropped.
+ * <p>
+ * The buffer is bounded both in seconds and in megabytes; the oldest frames are dropped first, a key frame with the
+ * deltas that depend on it. One recorder is shared by all the reporters of the JVM, see
+ * {@link #shared(int, int, int)}, and stops when the JVM exits, after writing the clips of the tests still running, see
+ * {@link #keepOnExit(String, long, Path)}; while they run, their clips are also written in segments, which are left
+ * behind when the JVM is killed. Without a display, the browser can be recorded instead of the screen, see
+ * {@link BrowserCapture}.
+ */
+@Slf4j
+public class ScreenRecorder {
+
+    private static final long MEGABYTE = 1024L * 1024L;
+    /** the interval between key frames */
+    public static final long KEY_FRAME_MILLIS = 10_000L;
+    /** the interval between the segments written for the running tests */
+    public static final long SEGMENT_MILLIS = 30_000L;
+
+    private static ScreenRecorder shared;
+
+    private final int framesPerSec;
+    private final int depth;
+    private final long maxMillis;
+    private final long maxBytes;
+    private final ScreenCapture capture;
+
+    /** encodes the queued frames; the encoder, the differencer and the times are used by this thread only */
+    private Thread encoderThread;
+    private volatile boolean recording;
+    private final AppleRLEEncoder encoder = new AppleRLEEncoder();
+    private FrameDifferencer differencer;
+    private long lastTime;
+    private long lastKeyTime;
+
+    /** the encoded frames, oldest first, always starting with a key frame; guarded by itself */
+    private final ArrayDeque<Frame> frames = new ArrayDeque<>();
+    private long bufferedBytes;
+    private final AtomicLong evictedFrames = new AtomicLong();
+    private final AtomicLong unchangedFrames = new AtomicLong();
+    /** the clips to write if the JVM exits before their tests end, by test */
+    private final Map<String, Running> running = new ConcurrentHashMap<>();
+    /** writes the segments of the running tests */
+    private ScheduledExecutorService segmentWriter;
+
+    /**
+     * @param framesPerSec the frames per second to capture
+     * @param bufferSeconds the seconds of screen to keep
+     * @param bufferMegabytes the memory the kept frames may use
+     */
+    public ScreenRecorder(int framesPerSec, int bufferSeconds, int bufferMegabytes) {
+        this(CaptureProfile.builder().framesPerSec(framesPerSec).build(), bufferSeconds, bufferMegabytes);
+    }
+
+    /**
+     * @param profile the frames per second and scale to capture at, in 16 or 24 bit
+     * @param bufferSeconds the seconds of screen to keep
+     * @param bufferMegabytes the memory the kept frames may use
+     */
+    public ScreenRecorder(CaptureProfile profile, int bufferSeconds, int bufferMegabytes) {
+        this(new ScreenCapture(profile, null), bufferSeconds, bufferMegabytes);
+    }
+
+    /**
+     * @param capture the capture to record, of the screen or of the browser, in 16 or 24 bit and not started
+     * @param bufferSeconds the seconds of screen to keep
+     * @param bufferMegabytes the memory the kept frames may use
+     */
+    public ScreenRecorder(ScreenCapture capture, int bufferSeconds, int bufferMegabytes) {
+        int framesPerSec = capture.getFps();
+        // the browser is recorded at fewer frames, each a screenshot that delays the Test
+        int minFramesPerSec = capture instanceof BrowserCapture ? 1 : 7;
+        Assert.state(framesPerSec >= minFramesPerSec && framesPerSec <= 30, "Cannot capture less than " + minFramesPerSec + " and more than 30 FPS");
+        Assert.state(capture.getDepth() == 16 || capture.getDepth() == 24, "Cannot record depth other than 16 and 24 bit");
+        Assert.state(bufferSeconds > 0, "Cannot keep less than 1 second of recording");
+        Assert.state(bufferMegabytes > 0, "Cannot keep less than 1 megabyte of recording");
+        this.framesPerSec = framesPerSec;
+        this.depth = capture.getDepth();
+        this.maxMillis = bufferSeconds * 1000L;
+        this.maxBytes = bufferMegabytes * MEGABYTE;
+        this.capture = capture;
+    }
+
+    /**
+     * Returns the recorder of this JVM, starting it on first use. Later calls return the same recorder, whatever
+     * their parameters.
+     * @param framesPerSec the frames per second to capture
+     * @param bufferSeconds the seconds of screen to keep
+     * @param bufferMegabytes the memory the kept frames may use
+     * @return the running recorder
+     */
+    public static ScreenRecorder shared(int framesPerSec, int bufferSeconds, int bufferMegabytes) {
+        return shared(CaptureProfile.builder().framesPerSec(framesPerSec).build(), bufferSeconds, bufferMegabytes);
+    }
+
+    /**
+     * Returns the recorder of this JVM, starting it on first use. Later calls return the same recorder, whatever
+     * their parameters.
+     * @param profile the frames per second and scale to capture at, in 16 or 24 bit
+     * @param bufferSeconds the seconds of screen to keep
+     * @param bufferMegabytes the memory the kept frames may use
+     * @return the running recorder
+     */
+    public static ScreenRecorder shared(CaptureProfile profile, int bufferSeconds, int bufferMegabytes) {
+        return shared(() -> {
+            System.setProperty("java.awt.headless", Boolean.toString(false));
+            return new ScreenCapture(profile, null);
+        }, bufferSeconds, bufferMegabytes);
+    }
+
+    /**
+     * Returns the recorder of this JVM, starting it on first use. Later calls return the same recorder, whatever
+     * their parameters.
+     * @param capture creates the capture to record, e.g. a {@link BrowserCapture}, in 16 or 24 bit
+     * @param bufferSeconds the seconds of screen to keep
+     * @param bufferMegabytes the memory the kept frames may use
+     * @return the running recorder
+     */
+    public static synchronized ScreenRecorder shared(Supplier<ScreenCapture> capture, int bufferSeconds, int bufferMegabytes) {
+        if (shared == null) {
+            ScreenRecorder recorder = new ScreenRecorder(capture.get(), bufferSeconds, bufferMegabytes);
+            recorder.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(recorder::exit, "screen-recorder-stop"));
+            shared = recorder;
+            log.info("Recording the last {} seconds of the {}, up to {} MB, {} fps", bufferSeconds,
+                    recorder.capture instanceof BrowserCapture ? "browser" : "screen", bufferMegabytes, recorder.framesPerSec);
+        }
+        return shared;
+    }
+
+    /**
+     * Writes the buffered frames captured since a time into a QuickTime movie
+     * @param movieFile the movie to write
+     * @param fromMillis the time of the first frame, usually the start of the test
+     * @return true if the movie was written, false if no frame was buffered since that time
+     * @throws IOException if the movie cannot be written
+     */
+    public boolean saveClip(Path movieFile, long fromMillis) throws IOException {
+        return clip(fromMillis).write(movieFile);
+    }
+
+    /**
+     * Takes the buffered frames captured since a time, to be written later, e.g. in the background. The frames are
+     * encoded already and never modified, so taking them costs a list of references.
+     * @param fromMillis the time of the first frame, usually the start of the test
+     * @return the clip, until now
+     */
+    public Clip clip(long fromMillis) {
+        long end = System.currentTimeMillis();
+        List<Frame> clip = new ArrayList<>();
+        synchronized (frames) {
+            for (Frame frame : frames) {
+                if (frame.isKey() && frame.getTime() <= fromMillis) {
+                    clip.clear(); // start from the last key frame before the time
+                }
+                clip.add(frame);
+            }
+        }
+        return new Clip(clip, fromMillis, end);
+    }
+
+    /**
+     * Writes the clip of a running test if the JVM exits before the test ends, e.g. when the run is killed or calls
+     * System.exit, so that its video is not lost with the buffer. Nothing is written on exit once the test ended, see
+     * {@link #discardOnExit(String)}.
+     * <p>
+     * A crash of the JVM, a SIGKILL or an OOM kill, runs no exit code: for those, the clip is also written every
+     * {@link #SEGMENT_MILLIS} while the test runs, in segments next to the movie, e.g. {@code movie.part1.mov}, each a
+     * movie of its own. A crash loses the last segment at most; the segments are deleted when the test ends, or when the
+     * whole movie is written on exit.
+     * @param test the test, e.g. its name
+     * @param fromMillis the start of the test
+     * @param movieFile the movie to write
+     */
+    public void keepOnExit(String test, long fromMillis, Path movieFile) {
+        running.put(test, new Running(fromMillis, movieFile));
+    }
+
+    /**
+     * Writes nothing on exit for a test, once it ended, and deletes its segments
+     * @param test the test, as kept
+     */
+    public void discardOnExit(String test) {
+        Running clip = running.remove(test);
+        if (clip != null) {
+            clip.deleteSegments();
+        }
+    }
+
+    /**
+     * @return the frames evicted from the buffer because it was full
+     */
+    public long getEvictedFrames() {
+        return evictedFrames.get();
+    }
+
+    /**
+     * @return the frames that were not kept because the screen had not changed
+     */
+    public long getUnchangedFrames() {
+        return unchangedFrames.get();
+    }
+
+    /**
+     * Starts capturing, and encoding the captured frames in the background
+     */
+    public void start() {
+        capture.captureStart();
+        recording = true;
+        encoderThread = new Thread(this::encodeQueued, "screen-recorder-encoder");
+        encoderThread.setDaemon(true);
+        encoderThread.start();
+        segmentWriter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "screen-recorder-segments");
+            thread.setDaemon(true);
+            return thread;
+        });
+        segmentWriter.scheduleWithFixedDelay(this::writeSegments, SEGMENT_MILLIS, SEGMENT_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops capturing and releases the buffered frames
+     */
+    public void stop() {
+        recording = false;
+        capture.captureEnd();
+        if (capture.getPool() != null) {
+            capture.getPool().shutdownNow();
+        }
+        if (encoderThread != null) {
+            encoderThread.interrupt();
+        }
+        if (segmentWriter != null) {
+            segmentWriter.shutdownNow();
+        }
+        synchronized (frames) {
+            frames.clear();
+            bufferedBytes = 0;
+        }
+    }
+
+    /** writes the clips of the running tests, and stops */
+    private void exit() {
+        if (segmentWriter != null) {
+            segmentWriter.shutdownNow();
+        }
+        running.forEach((test, clip) -> {
+            try {
+                if (clip(clip.fromMillis).write(clip.movieFile)) {
+                    clip.deleteSegments();
+                }
+            } catch (IOException | RuntimeException e) {
+                log.error("Cannot write the video of {} on exit: {}", test, e.getMessage());
+            }
+        });
+        stop();
+    }
+
+    /** writes the frames of each running test since its last segment into a new one */
+    private void writeSegments() {
+        running.forEach((test, clip) -> {
+            try {
+                clip.writeSegment();
+            } catch (IOException | RuntimeException e) {
+                log.warn("Cannot write a segment of the video of {}: {}", test, e.getMessage());
+            }
+        });
+    }
+
+    /** takes the captured frames off the queue of the capture, encodes them and returns them to the frame pool */
+    private void encodeQueued() {
+        while (recording) {
+            ScreenCapture.Screenshot screenshot;
+            try {
+                screenshot = capture.getTrackedScreens().poll(100, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (screenshot == null) {
+                continue;
+            }
+            try {
+                encode(screenshot);
+            } catch (RuntimeException e) {
+                log.error("Exception {} while encoding captured frame", e.getMessage(), e);
+                lastKeyTime = 0;
+            } finally {
+                capture.release(screenshot);
+            }
+        }
+    }
+
+    /** encodes a frame, in the encoder thread, before its pixels are reused */
+    private void encode(ScreenCapture.Screenshot screenshot) {
+        BufferedImage image = screenshot.getScreenshot();
+        int width = image.getWidth();
+        int height = image.getHeight();
+        DataBuffer buffer = image.getRaster().getDataBuffer();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (differencer == null) {
+            differencer = new FrameDifferencer(width, height, FrameDifferencer.TILE_SIZE, depth);
+        }
+        long time = Math.max(screenshot.getTime(), lastTime + 1); // the capturing threads may queue out of order
+        boolean key = time - lastKeyTime >= KEY_FRAME_MILLIS || isEmpty();
+        try {
+            if (key) {
+                writeKey(out, buffer, width, height);
+                lastKeyTime = time;
+            } else if (!writeDelta(out, buffer, width, height)) {
+                unchangedFrames.incrementAndGet();
+                return;
+            }
+        } catch (IOException e) {
+            log.error("Exception {} while encoding captured frame", e.getMessage());
+            lastKeyTime = 0; // the next frame cannot be a delta of this one
+            return;
+        }
+        lastTime = time;
+        store(new Frame(time, width, height, key, out.toByteArray()));
+    }
+
+    /** encodes a key frame, and makes it the reference of the next delta */
+    private void writeKey(ByteArrayOutputStream out, DataBuffer buffer, int width, int height) throws IOException {
+        if (depth == 16) {
+            short[] pixels = ((DataBufferUShort) buffer).getData();
+            encoder.writeKey16(out, pixels, width, height, 0, width);
+            differencer.update(pixels);
+        } else {
+            int[] pixels = ((DataBufferInt) buffer).getData();
+            encoder.writeKey24(out, pixels, width, height, 0, width);
+            differencer.update(pixels);
+        }
+    }
+
+    /** encodes the changes since the reference, false if there are none */
+    private boolean writeDelta(ByteArrayOutputStream out, DataBuffer buffer, int width, int height) throws IOException {
+        if (depth == 16) {
+            short[] pixels = ((DataBufferUShort) buffer).getData();
+            Rectangle dirty = differencer.compare(pixels);
+            if (dirty.isEmpty()) {
+                return false;
+            }
+            encoder.writeDelta16(out, pixels, differencer.getShortReference(), width, height, 0, width);
+            differencer.update(pixels, dirty);
+        } else {
+            int[] pixels = ((DataBufferInt) buffer).getData();
+            Rectangle dirty = differencer.compare(pixels);
+            if (dirty.isEmpty()) {
+                return false;
+            }
+            encoder.writeDelta24(out, pixels, differencer.getReference(), width, height, 0, width, dirty);
+            differencer.update(pixels, dirty);
+        }
+        return true;
+    }
+
+    private boolean isEmpty() {
+        synchronized (frames) {
+            return frames.isEmpty();
+        }
+    }
+
+    private void store(Frame frame) {
+        synchronized (frames) {
+            frames.addLast(frame);
+            bufferedBytes += frame.getData().length;
+            while (frames.size() > 1 && (frame.getTime() - frames.getFirst().getTime() > maxMillis || bufferedBytes > maxBytes)) {
+                evict();
+                while (!frames.isEmpty() && !frames.getFirst().isKey()) { // deltas cannot be decoded without their key frame
+                    evict();
+                }
+            }
+        }
+    }
+
+    private void evict() {
+        bufferedBytes -= frames.removeFirst().getData().length;
+        evictedFrames.incrementAndGet();
+    }
+
+    /**
+     * Buffered frames taken by {@link #clip(long)}
+     */
+    @AllArgsConstructor
+    public class Clip {
+        private final List<Frame> frames;
+        private final long fromMillis;
+        private final long end;
+
+        /**
+         * Writes the clip into a QuickTime movie
+         * @param movieFile the movie to write
+         * @return true if the movie was written, false if the clip is empty
+         * @throws IOException if the movie cannot be written
+         */
+        public boolean write(Path movieFile) throws IOException {
+            if (frames.isEmpty()) {
+                log.warn("No frames recorded since {}, {} not written", fromMillis, movieFile);
+                return false;
+            }
+            Frame first = frames.get(0);
+            movieFile.toFile().getParentFile().mkdirs();
+            QuickTimeWriter writer = new QuickTimeWriter(movieFile.toFile());
+            try {
+                writer.addVideoTrack("rle ", "Animation", 1000L, first.getWidth(), first.getHeight(), depth, 0);
+                for (int i = 0; i < frames.size(); i++) {
+                    Frame frame = frames.get(i);
+                    // a frame lasts until the next change, the last one until the end of the clip
+                    long next = i + 1 < frames.size() ? frames.get(i + 1).getTime() : Math.max(end, frame.getTime() + 1000 / framesPerSec);
+                    writer.writeSample(0, frame.getData(), Math.max(1, next - frame.getTime()), frame.isKey());
+                }
+            } finally {
+                writer.close();
+            }
+            log.info("Video {} written: {} frames, {} seconds", movieFile, frames.size(), (end - first.getTime()) / 1000);
+            return true;
+        }
+    }
+
+    @AllArgsConstructor
+    @Getter
+    static class Frame {
+        private long time;
+        private int width;
+        private int height;
+        private boolean key;
+        private byte[] data;
+    }
+
+    private class Running {
+        private final long fromMillis;
+        private final Path movieFile;
+        /** the segments written so far, and the end of the last one; guarded by this */
+        private final List<Path> segments = new ArrayList<>();
+        private long segmentEnd;
+        private boolean ended;
+
+        Running(long fromMillis, Path movieFile) {
+            this.fromMillis = fromMillis;
+            this.movieFile = movieFile;
+            this.segmentEnd = fromMillis;
+        }
+
+        /** a segment starts from the key frame before the end of the previous one, so it can be played on its own */
+        synchronized void writeSegment() throws IOException {
+            if (ended) {
+                return;
+            }
+            Clip clip = clip(segmentEnd);
+            String name = movieFile.getFileName().toString().replaceFirst("\\.mov$", "");
+            Path segment = movieFile.resolveSibling(name + ".part" + (segments.size() + 1) + ".mov");
+            if (clip.write(segment)) {
+                segments.add(segment);
+                segmentEnd = clip.end;
+            }
+        }
+
+        synchronized void deleteSegments() {
+            ended = true;
+            segments.forEach(segment -> segment.toFile().delete());
+            segments.clear();
+        }
+    }
+}
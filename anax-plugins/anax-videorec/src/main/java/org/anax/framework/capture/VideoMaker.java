@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.anax.framework.capture.qt.QuickTimeWriter;
 import org.springframework.util.Assert;
 
+import java.io.IOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Comparator;
@@ -11,15 +12,30 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Records the screen into a QuickTime movie until {@link #completeVideo()}.
+ * <p>
+ * The sample tables of a movie are written when it is closed, so a recording cut short is not playable. When
+ * recording in segments, the movie is rotated every so many seconds into numbered files, {@code movie-001.mov},
+ * {@code movie-002.mov} and so on: a crash loses the last segment only. The movie being written is also closed when
+ * the JVM shuts down, e.g. when the build is killed.
+ * <p>
+ * The screen is recorded by default; a {@link BrowserCapture} records the browser instead, without a display.
+ */
 @Slf4j
 public class VideoMaker {
 
     private ScheduledExecutorService pool = Executors.newScheduledThreadPool(1);
 
-    private QuickTimeWriter wr = null;
+    private PipelinedVideoWriter pipeline;
     private ScreenCapture sc;
+    /** the last frame drained, written once the next one is, by the writer thread */
+    private ScreenCapture.Screenshot lastFrame;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final Thread closeOnExit = new Thread(this::closeOnExit, "video-maker-close");
 
 
     private int finalVideoWait;
@@ -29,28 +45,67 @@ public class VideoMaker {
     }
 
     public VideoMaker(final Path movieFile, final int framesPerSec, final int videoWaitAfterEndSeconds, final boolean captureMouse, final int depth) throws Exception {
+        this(movieFile, framesPerSec, videoWaitAfterEndSeconds, captureMouse, depth, 0);
+    }
+
+    /**
+     * @param movieFile the movie to write, the name of the segments if recording in segments
+     * @param framesPerSec the frames per second to capture
+     * @param videoWaitAfterEndSeconds the seconds to keep recording once completed
+     * @param captureMouse whether to draw the mouse pointer
+     * @param depth the depth of the movie, 16, 24 or 32 bit
+     * @param segmentSeconds the seconds per segment, 0 to write a single movie
+     * @throws Exception if the recording cannot start
+     */
+    public VideoMaker(final Path movieFile, final int framesPerSec, final int videoWaitAfterEndSeconds, final boolean captureMouse, final int depth,
+                      final int segmentSeconds) throws Exception {
+        this(movieFile, CaptureProfile.builder().framesPerSec(framesPerSec).depth(depth).build(), videoWaitAfterEndSeconds, captureMouse, segmentSeconds);
+    }
+
+    /**
+     * @param movieFile the movie to write, the name of the segments if recording in segments
+     * @param profile the frames per second, depth and scale to record at
+     * @param videoWaitAfterEndSeconds the seconds to keep recording once completed
+     * @param captureMouse whether to draw the mouse pointer
+     * @param segmentSeconds the seconds per segment, 0 to write a single movie
+     * @throws Exception if the recording cannot start
+     */
+    public VideoMaker(final Path movieFile, final CaptureProfile profile, final int videoWaitAfterEndSeconds, final boolean captureMouse,
+                      final int segmentSeconds) throws Exception {
+        this(movieFile, screenCapture(profile, captureMouse), videoWaitAfterEndSeconds, segmentSeconds);
+    }
+
+    /**
+     * @param movieFile the movie to write, the name of the segments if recording in segments
+     * @param capture the capture to record, of the screen or of the browser, not started
+     * @param videoWaitAfterEndSeconds the seconds to keep recording once completed
+     * @param segmentSeconds the seconds per segment, 0 to write a single movie
+     * @throws Exception if the recording cannot start
+     */
+    public VideoMaker(final Path movieFile, final ScreenCapture capture, final int videoWaitAfterEndSeconds, final int segmentSeconds) throws Exception {
+        final int framesPerSec = capture.getFps();
+        final int depth = capture.getDepth();
         Assert.state(videoWaitAfterEndSeconds > 0 && videoWaitAfterEndSeconds < 20, "Cannot capture more than 20 seconds after end");
         Assert.state(framesPerSec > 6 && framesPerSec <= 30, "Cannot capture less than 7 and more than 30 FPS");
         Assert.state(depth == 16 || depth == 24 || depth == 32, "Cannot capture depth other than 16, 24, 32 bit");
+        Assert.state(segmentSeconds >= 0, "Cannot record segments of less than 0 seconds");
         finalVideoWait = videoWaitAfterEndSeconds*1000;
+        sc = capture;
 
-
-        System.setProperty("java.awt.headless", Boolean.toString(false));
-        if (captureMouse) {
-            MouseCapture mc = MouseCapture.builder()
-                    .captureDelayMs(1000 / framesPerSec)
-                    .build();
-            sc = new ScreenCapture(framesPerSec, mc, depth); //rle is 24bit anyway
-            mc.captureStart();
-        } else {
-            sc = new ScreenCapture(framesPerSec, depth);
-
-        }
-
+        // one GOP per encoder, half a second each; the frames of the GOPs in flight come from the capture pool
+        int encoders = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors() - 1, 4));
+        int gopSize = Math.max(2, framesPerSec / 2);
+        sc.setPoolSize(gopSize * (encoders + 2));
         sc.captureStart();
 
-        wr = new QuickTimeWriter(movieFile.toFile());
-        wr.addVideoTrack("rle ", "Animation", 1000L, sc.getRect().width, sc.getRect().height, depth, 30);
+        // segments are rotated between GOPs, so that each one starts with a key frame
+        int segmentGops = segmentSeconds * framesPerSec / gopSize;
+        pipeline = new PipelinedVideoWriter(segment -> openMovie(segmentGops > 0 ? segmentFile(movieFile, segment) : movieFile, depth, gopSize),
+                segmentGops, 0, depth, gopSize, encoders);
+        if (sc.getMouseCapture() != null) { // drawn by the encoders, where the pointer was at each frame
+            pipeline.setCursor(new CursorOverlay(sc.getMouseCapture(), sc.getScale()));
+        }
+        Runtime.getRuntime().addShutdownHook(closeOnExit);
 
         AtomicLong totalFrames = new AtomicLong(0);
         pool.scheduleWithFixedDelay(() -> {
@@ -60,23 +115,23 @@ public class VideoMaker {
             ArrayList<ScreenCapture.Screenshot> list = new ArrayList<>(100);
             screens.drainTo(list);
             list.sort(Comparator.comparingLong(ScreenCapture.Screenshot::getTime)); //sort in case frames arrived later
-            long t0 = System.currentTimeMillis();
-            try {
-                log.info("WR: processing {} frames...", list.size());
-                for (ScreenCapture.Screenshot screenshot : list) {
-                    double duration = (1000.0 / framesPerSec);
-                    wr.writeFrame(0, screenshot.getScreenshot(), (long) duration);
-                }
-                final long l = totalFrames.addAndGet(list.size());
-                log.info("WR: total frames {}, seconds {}", l, (l / framesPerSec));
-            } catch (Exception e) {
-                log.error("Exception {} while writing captured video - {} frames lost", e.getMessage(), list.size());
+            log.debug("WR: queueing {} frames...", list.size());
+            for (ScreenCapture.Screenshot screenshot : list) {
+                writeLastFrame(screenshot.getTime());
+                lastFrame = screenshot;
             }
-        }, 20, 10, TimeUnit.SECONDS);
+            final long l = totalFrames.addAndGet(list.size());
+            log.debug("WR: total frames {}, seconds {}, dropped {}", l, (l / framesPerSec), sc.getDroppedFrames());
+        }, 500, 500, TimeUnit.MILLISECONDS); // the capture pool holds the frames of the GOPs in flight
 
     }
 
     public void completeVideo() throws Exception {
+        try {
+            Runtime.getRuntime().removeShutdownHook(closeOnExit);
+        } catch (IllegalStateException e) {
+            // shutting down already, the hook closes the movie
+        }
         // wait for 2 more seconds
         Thread.sleep(finalVideoWait);
         sc.captureEnd();
@@ -84,18 +139,81 @@ public class VideoMaker {
 
         while (sc.getTrackedScreens().size() > 0) { //waiting for writer to finish
             log.info("waiting .... frames left {} (max {}) ...", sc.getTrackedScreens().size(), sc.getTrackedScreens().remainingCapacity());
-            Thread.sleep(5000);
+            Thread.sleep(500);
         }
         pool.shutdown();
         while (!pool.awaitTermination(5000, TimeUnit.MILLISECONDS)) {
             log.info("waiting for writer to finish");
         }
+        writeLastFrame(System.currentTimeMillis());
+        pipeline.finish();
+        closeMovie();
+        log.info("Video complete, {} segments, {} frames dropped.", pipeline.getSegments(), sc.getDroppedFrames());
+    }
+
+    /**
+     * @param movieFile the movie to write
+     * @param segment the index of a segment, from 0
+     * @return the file of the segment, the movie file name numbered from 001
+     */
+    public static Path segmentFile(Path movieFile, int segment) {
+        String name = movieFile.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        return movieFile.resolveSibling(String.format("%s-%03d%s", base, segment + 1, extension));
+    }
+
+    private static ScreenCapture screenCapture(CaptureProfile profile, boolean captureMouse) {
+        System.setProperty("java.awt.headless", Boolean.toString(false));
+        if (captureMouse) {
+            MouseCapture mc = MouseCapture.builder()
+                    .captureDelayMs(1000 / profile.getFramesPerSec())
+                    .build();
+            ScreenCapture sc = new ScreenCapture(profile, mc);
+            mc.captureStart();
+            return sc;
+        }
+        return new ScreenCapture(profile, null);
+    }
 
-        if (wr != null) {
-            wr.close();
-            log.info("Video complete.");
+    /** writes the last drained frame, lasting until the next one: the frames per second of a capture vary */
+    private void writeLastFrame(long until) {
+        final ScreenCapture.Screenshot frame = lastFrame;
+        if (frame != null) {
+            lastFrame = null;
+            // encoded in parallel, the frame goes back to the capture pool once encoded
+            pipeline.writeFrame(frame.getScreenshot(), frame.getTime(), Math.max(1, until - frame.getTime()), () -> sc.release(frame));
         }
+    }
 
+    private QuickTimeWriter openMovie(Path file, int depth, int gopSize) throws IOException {
+        QuickTimeWriter movie = new QuickTimeWriter(file.toFile());
+        movie.addVideoTrack("rle ", "Animation", 1000L, sc.getFrameSize().width, sc.getFrameSize().height, depth, gopSize);
+        return movie;
+    }
+
+    private void closeMovie() throws IOException {
+        QuickTimeWriter movie = pipeline.getWriter();
+        if (movie != null && closed.compareAndSet(false, true)) {
+            movie.close();
+        }
+    }
+
+    /** writes what was captured so far when the JVM exits before the video is complete */
+    private void closeOnExit() {
+        try {
+            sc.captureEnd();
+            pool.shutdown();
+            if (pool.awaitTermination(1, TimeUnit.SECONDS)) {
+                writeLastFrame(System.currentTimeMillis());
+            }
+            pipeline.finish();
+            closeMovie();
+            log.info("Video closed on exit, {} segments", pipeline.getSegments());
+        } catch (Exception e) {
+            log.error("Exception {} while closing video on exit", e.getMessage());
+        }
     }
 
 //    public static void main(String[] args) throws Exception {
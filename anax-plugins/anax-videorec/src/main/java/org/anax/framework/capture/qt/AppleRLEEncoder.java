@@ -11,6 +11,7 @@ package org.anax.framework.capture.qt;
  * For details see accompanying license terms.
  */
 
+import java.awt.Rectangle;
 import java.io.IOException;
 import java.io.OutputStream;
 
@@ -512,6 +513,40 @@ public class AppleRLEEncoder {
         }
         //System.out.println("AppleRLEEncoder ymin:" + ymin / step + " ymax" + ymax / step);
 
+        writeDelta24Lines(out, data, prev, width, height, offset, scanlineStride, ymin, ymax, 0);
+    }
+
+    /** Encodes a 24-bit delta frame, whose changes are known to lie within a region.
+     * <p>
+     * The lines outside the region are skipped without comparing them, as are
+     * the pixels on the left of the region. When the region is the bounding box
+     * of the changes, the bytes are those of the delta encoded from the whole
+     * frame; a larger region adds its unchanged lines, as empty lines, and
+     * decodes to the same frame.
+     *
+     * @param data The image data.
+     * @param prev The image data of the previous frame.
+     * @param offset The offset to the first pixel in the data array.
+     * @param width The width of the image in data elements.
+     * @param scanlineStride The number to add to offset to get to the next scanline.
+     * @param dirty The region that contains all the changed pixels, empty if none.
+     */
+    public void writeDelta24(OutputStream out, int[] data, int[] prev, int width, int height, int offset, int scanlineStride, Rectangle dirty)
+            throws IOException {
+        tmpSeek.reset();
+        if (dirty.isEmpty()) {
+            // => Frame is identical to previous one
+            tmp.writeInt(4);
+            tmpSeek.toOutputStream(out);
+            return;
+        }
+        int ymin = offset + dirty.y * scanlineStride;
+        int ymax = offset + (dirty.y + dirty.height) * scanlineStride;
+        writeDelta24Lines(out, data, prev, width, height, offset, scanlineStride, ymin, ymax, dirty.x);
+    }
+
+    private void writeDelta24Lines(OutputStream out, int[] data, int[] prev, int width, int height, int offset, int scanlineStride,
+                                   int ymin, int ymax, int xmin) throws IOException {
         // Reserve space for the header
         long headerPos = tmpSeek.getStreamPosition();
         tmp.writeInt(0);
@@ -531,11 +566,11 @@ public class AppleRLEEncoder {
 
         // Encode each scanline
         for (int y = ymin; y < ymax; y += scanlineStride) {
-            int xy = y;
+            int xy = y + xmin; // the pixels on the left of xmin are known to be unchanged
             int xymax = y + width;
 
             // determine skip count
-            int skipCount = 0;
+            int skipCount = xmin;
             for (; xy < xymax; ++xy, ++skipCount) {
                 if (data[xy] != prev[xy]) {
                     break;
@@ -0,0 +1,139 @@
+package org.anax.framework.capture.qt;
+
+import javax.imageio.stream.ImageOutputStreamImpl;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * An {@code ImageOutputStream} on a {@code FileChannel}, used by {@link QuickTimeWriter} to write movie files.
+ * <p>
+ * {@code FileImageOutputStream} performs a system call per write, and the atom
+ * headers and sample tables are written a byte at a time. This stream gathers
+ * writes in a direct buffer which is written at its file position when full or
+ * on seek, so that patching an atom header costs two positional writes. Writes
+ * larger than the buffer, i.e. the samples of the {@code mdat} atom, are written
+ * to the channel directly.
+ */
+public class FileChannelImageOutputStream extends ImageOutputStreamImpl {
+
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private final FileChannel channel;
+    /** the pending bytes, to be written at bufferStart */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long bufferStart;
+
+    /**
+     * Creates a stream on a file, truncating it.
+     *
+     * @param file the file
+     * @throws IOException if the file cannot be opened
+     */
+    public FileChannelImageOutputStream(File file) throws IOException {
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        flushBits();
+        if (!buffer.hasRemaining()) {
+            flushBuffer();
+        }
+        if (buffer.position() == 0) {
+            bufferStart = streamPos;
+        }
+        buffer.put((byte) b);
+        streamPos++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        flushBits();
+        if (len > buffer.remaining()) {
+            flushBuffer();
+        }
+        if (len >= buffer.capacity()) {
+            ByteBuffer data = ByteBuffer.wrap(b, off, len);
+            long position = streamPos;
+            while (data.hasRemaining()) {
+                position += channel.write(data, position);
+            }
+        } else {
+            if (buffer.position() == 0) {
+                bufferStart = streamPos;
+            }
+            buffer.put(b, off, len);
+        }
+        streamPos += len;
+    }
+
+    @Override
+    public int read() throws IOException {
+        flushBuffer();
+        bitOffset = 0;
+        ByteBuffer one = ByteBuffer.allocate(1);
+        if (channel.read(one, streamPos) <= 0) {
+            return -1;
+        }
+        streamPos++;
+        return one.get(0) & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        flushBuffer();
+        bitOffset = 0;
+        int read = channel.read(ByteBuffer.wrap(b, off, len), streamPos);
+        if (read > 0) {
+            streamPos += read;
+        }
+        return read;
+    }
+
+    @Override
+    public void seek(long pos) throws IOException {
+        flushBuffer();
+        super.seek(pos);
+    }
+
+    @Override
+    public long length() {
+        try {
+            return Math.max(channel.size(), bufferStart + buffer.position());
+        } catch (IOException e) {
+            return -1L;
+        }
+    }
+
+    @Override
+    public void flushBefore(long pos) throws IOException {
+        flushBuffer();
+        super.flushBefore(pos);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer();
+        } finally {
+            channel.close();
+            super.close();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (buffer.position() == 0) {
+            return;
+        }
+        buffer.flip();
+        long position = bufferStart;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        buffer.clear();
+    }
+}
@@ -2184,7 +2184,7 @@ public class QuickTimeWriter {
     }
 
     /**
-     * Creates a new QuickTime writer.
+     * Creates a new QuickTime writer, writing through a {@link FileChannelImageOutputStream}.
      *
      * @param file the output file
      */
@@ -2192,7 +2192,7 @@ public class QuickTimeWriter {
         if (file.exists()) {
             file.delete();
         }
-        this.out = new FileImageOutputStream(file);
+        this.out = new FileChannelImageOutputStream(file);
 
 
         this.streamOffset = 0;
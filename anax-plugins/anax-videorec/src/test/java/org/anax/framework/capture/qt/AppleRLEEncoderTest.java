@@ -0,0 +1,144 @@
+package org.anax.framework.capture.qt;
+
+import org.junit.Test;
+
+import java.awt.Rectangle;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.ByteArrayInputStream;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+
+/**
+ * Checks that a 24-bit delta encoded within its dirty region is the delta encoded from the whole frame: the same bytes
+ * when the region is the bounding box of the changes, the same decoded frame when it is larger, as the tiles of a
+ * FrameDifferencer are.
+ */
+public class AppleRLEEncoderTest {
+
+    private static final int WIDTH = 800;
+    private static final int HEIGHT = 40;
+    private static final int TILE = 32;
+
+    @Test
+    public void changesAtTheLeftEdge() throws IOException {
+        check(new Rectangle(0, 5, 10, 5));
+    }
+
+    @Test
+    public void changesAfterASingleSkip() throws IOException {
+        check(new Rectangle(254, 5, 20, 5));
+        check(new Rectangle(255, 5, 20, 5));
+        check(new Rectangle(300, 5, 20, 5));
+    }
+
+    @Test
+    public void changesAfterChainedSkips() throws IOException {
+        check(new Rectangle(508, 0, 3, 2));
+        check(new Rectangle(509, 0, 3, 2));
+        check(new Rectangle(700, 12, 50, 10));
+    }
+
+    @Test
+    public void changesAtTheRightAndBottomEdges() throws IOException {
+        check(new Rectangle(WIDTH - 10, HEIGHT - 5, 10, 5));
+        check(new Rectangle(WIDTH - 1, 0, 1, HEIGHT));
+    }
+
+    @Test
+    public void changesAcrossTheFrame() throws IOException {
+        check(new Rectangle(0, 0, WIDTH, HEIGHT));
+        check(new Rectangle(0, HEIGHT - 1, WIDTH, 1));
+    }
+
+    /** changes the pixels of a region, and compares the encodings of the frame, within the region and within its tiles */
+    private void check(Rectangle changed) throws IOException {
+        Random random = new Random(changed.hashCode());
+        int[] prev = new int[WIDTH * HEIGHT];
+        for (int i = 0; i < prev.length; i++) {
+            prev[i] = random.nextInt(4) * 0x3f3f3f; // with runs, for the repeat op-codes
+        }
+        int[] data = prev.clone();
+        for (int y = changed.y; y < changed.y + changed.height; y++) {
+            for (int x = changed.x; x < changed.x + changed.width; x++) {
+                data[y * WIDTH + x] = random.nextInt(3) == 0 ? 0xffffff : random.nextInt(0x1000000);
+            }
+        }
+        // the corners of the region differ, so that it is the bounding box of the changes
+        for (int corner : new int[]{index(changed.x, changed.y), index(changed.x + changed.width - 1, changed.y),
+                index(changed.x, changed.y + changed.height - 1), index(changed.x + changed.width - 1, changed.y + changed.height - 1)}) {
+            data[corner] = prev[corner] ^ 0x010101;
+        }
+
+        byte[] full = encode(data, prev, null);
+        assertArrayEquals("same bytes within " + changed, full, encode(data, prev, changed));
+
+        Rectangle tiles = tiles(changed);
+        assertArrayEquals("same frame within " + tiles, data, decode(encode(data, prev, tiles), prev));
+        assertArrayEquals("same frame from the whole frame", data, decode(full, prev));
+    }
+
+    private static int index(int x, int y) {
+        return y * WIDTH + x;
+    }
+
+    /** the tiles that contain a region, as compared by a FrameDifferencer */
+    private static Rectangle tiles(Rectangle region) {
+        int x = region.x / TILE * TILE;
+        int y = region.y / TILE * TILE;
+        int maxX = Math.min(WIDTH, (region.x + region.width + TILE - 1) / TILE * TILE);
+        int maxY = Math.min(HEIGHT, (region.y + region.height + TILE - 1) / TILE * TILE);
+        return new Rectangle(x, y, maxX - x, maxY - y);
+    }
+
+    private static byte[] encode(int[] data, int[] prev, Rectangle dirty) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        if (dirty == null) {
+            new AppleRLEEncoder().writeDelta24(out, data, prev, WIDTH, HEIGHT, 0, WIDTH);
+        } else {
+            new AppleRLEEncoder().writeDelta24(out, data, prev, WIDTH, HEIGHT, 0, WIDTH, dirty);
+        }
+        return out.toByteArray();
+    }
+
+    /** decodes a 24-bit delta over the previous frame */
+    private static int[] decode(byte[] delta, int[] prev) throws IOException {
+        int[] frame = prev.clone();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(delta));
+        if (in.readInt() == 4) {
+            return frame;
+        }
+        int firstLine = 0;
+        int lines = HEIGHT;
+        if (in.readUnsignedShort() == 0x0008) {
+            firstLine = in.readUnsignedShort();
+            in.readUnsignedShort();
+            lines = in.readUnsignedShort();
+            in.readUnsignedShort();
+        }
+        for (int y = firstLine; y < firstLine + lines; y++) {
+            int x = in.readUnsignedByte() - 1;
+            for (int code = in.readByte(); code != -1; code = in.readByte()) {
+                if (code == 0) {
+                    x += in.readUnsignedByte() - 1;
+                } else if (code > 0) {
+                    for (int i = 0; i < code; i++) {
+                        frame[index(x++, y)] = readPixel(in);
+                    }
+                } else {
+                    int pixel = readPixel(in);
+                    for (int i = 0; i < -code; i++) {
+                        frame[index(x++, y)] = pixel;
+                    }
+                }
+            }
+        }
+        return frame;
+    }
+
+    private static int readPixel(DataInputStream in) throws IOException {
+        return in.readUnsignedByte() << 16 | in.readUnsignedByte() << 8 | in.readUnsignedByte();
+    }
+}
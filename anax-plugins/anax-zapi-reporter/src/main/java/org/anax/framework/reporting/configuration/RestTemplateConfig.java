@@ -1,26 +1,88 @@
 package org.anax.framework.reporting.configuration;
 
+import org.anax.framework.reporting.service.ZapiRequestMetrics;
+import org.apache.http.HeaderElement;
+import org.apache.http.HeaderElementIterator;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.message.BasicHeaderElementIterator;
+import org.apache.http.protocol.HTTP;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 import java.time.Duration;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class RestTemplateConfig {
 
     @Value("${zapi.user:NOT_CONFIGURED}") private String user;
     @Value("${zapi.password:NOT_CONFIGURED}") private String password;
-    @Value("${time_out:120000}") Duration time_out;
+
+    /** the connections kept open to Jira, in total and to one host */
+    @Value("${zapi.http.maxConnections:20}") Integer maxConnections;
+    @Value("${zapi.http.maxConnectionsPerRoute:10}") Integer maxConnectionsPerRoute;
+    /** how long an idle connection is kept open, unless the server says otherwise */
+    @Value("${zapi.http.keepAlive:30s}") Duration keepAlive;
+    @Value("${zapi.http.connectTimeout:${time_out:120000}}") Duration connectTimeout;
+    @Value("${zapi.http.readTimeout:${time_out:120000}}") Duration readTimeout;
+    /** how long a request waits for a connection of the pool */
+    @Value("${zapi.http.poolTimeout:${time_out:120000}}") Duration poolTimeout;
+
+    @Bean
+    public ZapiRequestMetrics zapiRequestMetrics() {
+        return new ZapiRequestMetrics();
+    }
 
     @Bean("zapiRestTemplate")
     public RestTemplate restTemplate() {
         return new RestTemplateBuilder()
                 .basicAuthentication(user, password)
-                .setConnectTimeout(time_out)
-                .setReadTimeout(time_out)
+                .requestFactory(() -> new HttpComponentsClientHttpRequestFactory(httpClient()))
+                .additionalInterceptors(zapiRequestMetrics())
                 .build();
     }
+
+    /** pooled, keep-alive connections; responses are gzip or deflate compressed if the server can */
+    private HttpClient httpClient() {
+        PoolingHttpClientConnectionManager connections = new PoolingHttpClientConnectionManager();
+        connections.setMaxTotal(maxConnections);
+        connections.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+        return HttpClientBuilder.create()
+                .setConnectionManager(connections)
+                .setKeepAliveStrategy(keepAliveStrategy())
+                .evictIdleConnections(keepAlive.toMillis(), TimeUnit.MILLISECONDS)
+                .evictExpiredConnections()
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectTimeout((int) connectTimeout.toMillis())
+                        .setSocketTimeout((int) readTimeout.toMillis())
+                        .setConnectionRequestTimeout((int) poolTimeout.toMillis())
+                        .build())
+                .build();
+    }
+
+    /** the timeout of the Keep-Alive response header, or the configured keep alive */
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            HeaderElementIterator it = new BasicHeaderElementIterator(response.headerIterator(HTTP.CONN_KEEP_ALIVE));
+            while (it.hasNext()) {
+                HeaderElement element = it.nextElement();
+                if ("timeout".equalsIgnoreCase(element.getName()) && element.getValue() != null) {
+                    try {
+                        return Long.parseLong(element.getValue()) * 1000;
+                    } catch (NumberFormatException ignored) {
+                    }
+                }
+            }
+            return keepAlive.toMillis();
+        };
+    }
 }
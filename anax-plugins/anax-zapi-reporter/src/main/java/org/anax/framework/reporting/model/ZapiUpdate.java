@@ -0,0 +1,48 @@
+package org.anax.framework.reporting.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * A change to the executions of a cycle, queued to be sent to ZAPI. The test cases are named by their attribute, see
+ * {@link org.anax.framework.reporting.service.TestCaseToIssueResolver}, the ids are resolved when it is sent.
+ */
+@Data
+@Builder
+public class ZapiUpdate {
+
+    public enum Type {
+        /** the cycle of the run, created if it does not exist */
+        CYCLE,
+        /** the status of the test cases, one bulk update per status */
+        STATUS,
+        /** the status of a test step */
+        STEP_STATUS,
+        /** the comment of a test case execution */
+        COMMENT,
+        /** the bugs of a test case execution */
+        BUGS,
+        /** a file attached to a test case execution */
+        ATTACHMENT,
+        /** a file attached to a test step, e.g. its screenshot or video, each uploaded on its own */
+        STEP_ATTACHMENT
+    }
+
+    Type type;
+    String project;
+    String version;
+    String cycle;
+    /** the test cases of a {@link Type#STATUS} update */
+    List<String> testCases;
+    String testCase;
+    String status;
+    /** the ordering of the test step, from 0 */
+    Integer step;
+    /** the comment of the execution, or of the step when it did not pass */
+    String comment;
+    List<String> bugs;
+    /** the file to attach, to the step or to the execution */
+    String attachment;
+}
@@ -1,28 +1,40 @@
 package org.anax.framework.reporting.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.anax.framework.capture.VideoMaker;
+import org.anax.framework.capture.BrowserCapture;
+import org.anax.framework.capture.CaptureProfile;
+import org.anax.framework.capture.ScreenRecorder;
+import org.anax.framework.controllers.SerializedWebController;
 import org.anax.framework.controllers.WebController;
 import org.anax.framework.model.Suite;
 import org.anax.framework.model.Test;
 import org.anax.framework.model.TestMethod;
 import org.anax.framework.reporting.AnaxTestReporter;
+import org.anax.framework.reporting.ReporterSupportsParallelTests;
 import org.anax.framework.reporting.ReporterSupportsScreenshot;
 import org.anax.framework.reporting.ReporterSupportsVideo;
+import org.anax.framework.reporting.ReportingTaskQueue;
+import org.anax.framework.reporting.model.ZapiUpdate;
 import org.apache.commons.io.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.File;
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Component("zapiAnaxTestReporter")
 @Slf4j
-public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScreenshot, ReporterSupportsVideo {
+public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScreenshot, ReporterSupportsVideo, ReporterSupportsParallelTests {
     @Autowired
     protected CycleCreator                cycleCreator;
     @Autowired
@@ -31,13 +43,49 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
     protected WebController               controller;
     @Autowired
     protected AnaxIssueAnnotationResolver anaxIssueAnnotationResolver;
+    @Autowired
+    protected ZapiRequestMetrics          requestMetrics;
 
 
     @Value("${zapi.enabled:true}") private Boolean enabled;
     /** do not change the FPS value over 15, due to h/w limitations */
     @Value("${anax.video.fps:10}") Integer videoFramesPerSec;
-    /** how many seconds to continue recording, after the "end recording" has been called */
-    @Value("${anax.video.waitSecAtEnd:5}") Integer videoWaitSeconds;
+    /** the size of the recorded frames relative to the screen, e.g. 0.5 for a quarter of the pixels */
+    @Value("${anax.video.scale:1.0}") Double videoScale;
+    /** the color depth of the recording, 24 bit, or 16 bit for smaller videos in fewer colors */
+    @Value("${anax.video.depth:24}") Integer videoDepth;
+    /** screen to record the display, browser to record the screenshots of the browser, e.g. when headless */
+    @Value("${anax.video.source:screen}") String videoSource;
+    /** the frames per second of the browser source, each a screenshot taken between the commands of the Test */
+    @Value("${anax.video.browserFps:2}") Integer videoBrowserFramesPerSec;
+    /** the Tests run at once; the browser source can only record the browser of a single Test */
+    @Value("${anax.parallel.threads:0}") Integer parallelThreads;
+    /** how many seconds of screen to keep for the video of a failed test */
+    @Value("${anax.video.bufferSeconds:120}") Integer videoBufferSeconds;
+    /** how much memory the kept screen may use */
+    @Value("${anax.video.bufferMegabytes:512}") Integer videoBufferMegabytes;
+    /** how many videos and screenshots may wait to be uploaded, before the tests wait for them */
+    @Value("${anax.report.mediaQueueSize:16}") Integer mediaQueueSize;
+    /** how long the end of the suite waits for the pending videos and screenshots */
+    @Value("${anax.report.mediaDrainSeconds:300}") Integer mediaDrainSeconds;
+    /** how many threads send the ZAPI updates, each for its own test cases */
+    @Value("${zapi.outbox.threads:2}") Integer outboxThreads;
+    /** how many ZAPI updates each thread may have pending, before the tests wait for them */
+    @Value("${zapi.outbox.queueSize:256}") Integer outboxQueueSize;
+    /** how many times a ZAPI update is sent at most, on server and connection errors */
+    @Value("${zapi.outbox.attempts:5}") Integer outboxAttempts;
+    /** the wait before the first retry of a ZAPI update, doubled for each retry after it */
+    @Value("${zapi.outbox.retryDelayMs:1000}") Long outboxRetryDelayMs;
+    /** how long the end of the suite waits for the pending ZAPI updates, the test statuses included */
+    @Value("${zapi.outbox.drainSeconds:300}") Integer outboxDrainSeconds;
+    /** whether to journal the ZAPI updates in the results directory, see {@link ZapiJournalReplayer} */
+    @Value("${zapi.journal.enabled:true}") Boolean journalEnabled;
+    /** how many ZAPI updates are journaled between two syncs to the disk at most */
+    @Value("${zapi.journal.syncEvery:32}") Integer journalSyncEvery;
+    /** only journal the ZAPI updates, to be replayed later; the test cases are then reported as without steps */
+    @Value("${zapi.offline:false}") Boolean offline;
+    /** a journal to replay, which is not done by the tests, see {@link ZapiJournalReplayer} */
+    @Value("${zapi.replay:}") String replay;
 
     @Value("${zapi.status.pass.code:1}") private String pass;
     @Value("${zapi.status.fail.code:2}") private String fail;
@@ -45,21 +93,30 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
     @Value("${zapi.results.directory:zapi-results/}") String resultsZapiDirectory;
     @Value("${zapi.jira.project:NOT_CONFIGURED}") private String project;
     @Value("${zapi.testSteps.status.update:true}") private Boolean testStepStatusUpdateEnabled;
-    private VideoMaker          videoMaker;
+    private volatile ScreenRecorder screenRecorder;
+    /** writes and uploads the videos and screenshots while the next test runs */
+    private ReportingTaskQueue  mediaTasks;
+    /** sends the updates to ZAPI while the tests run */
+    private ZapiOutbox          outbox;
+    /** every ZAPI update of the run, null if not journaled */
+    private ZapiJournal         journal;
     private boolean             screenshotEnable;
     private boolean             videoEnable;
     private String              videoBaseDirectory;
     private String              cycleName;
     private String              version;
-    private Map<Integer,String> tcComment;
-    private Boolean failed   =  false;
+    private volatile boolean failed;
 
 
-    private Set<String>  passedTCs   = new HashSet<>();
-    private Set<String>  failedTCs   = new HashSet<>();
-    private Set<String>  skippedTCs  = new HashSet<>();
-    private Set<String>  errorTCs    = new HashSet<>();
-    private List<String> tcSteps     = new ArrayList<>();
+    /** the status of the test cases, updated by Tests running in parallel */
+    private Set<String>  passedTCs   = ConcurrentHashMap.newKeySet();
+    private Set<String>  failedTCs   = ConcurrentHashMap.newKeySet();
+    private Set<String>  skippedTCs  = ConcurrentHashMap.newKeySet();
+    private Set<String>  errorTCs    = ConcurrentHashMap.newKeySet();
+    /** the state of each running Test, by test bean name, as Tests may run in parallel */
+    private final Map<String, List<String>>          tcSteps     = new ConcurrentHashMap<>();
+    private final Map<String, Map<Integer, String>>  tcComments  = new ConcurrentHashMap<>();
+    private final Map<String, Long>                  videoStarts = new ConcurrentHashMap<>();
 
 
     @Autowired
@@ -67,6 +124,34 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
         version = versionResolver.resolveAppVersion();
     }
 
+    @PostConstruct
+    public void init() {
+        if (!StringUtils.isEmpty(replay)) {
+            throw new IllegalStateException("ZAPI journals are replayed by " + ZapiJournalReplayer.class.getName() + ", not by the tests: " + replay);
+        }
+        mediaTasks = new ReportingTaskQueue("zapi-media", mediaQueueSize);
+        outbox = new ZapiOutbox(executionManager, outboxThreads, outboxQueueSize, outboxAttempts, outboxRetryDelayMs);
+        if (enabled && (journalEnabled || offline)) {
+            File file = new File(resultsZapiDirectory + "/zapi-journal-" + DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").format(LocalDateTime.now()) + ".jsonl");
+            try {
+                journal = new ZapiJournal(file, journalSyncEvery);
+                log.info("Journaling ZAPI updates to {}{}", file, offline ? ", offline: replay it with " + ZapiJournalReplayer.class.getName() + " --zapi.replay=" + file : "");
+            } catch (IOException e) {
+                if (offline) { // the updates would be neither sent nor kept
+                    throw new IllegalStateException("Cannot journal ZAPI updates offline to " + file, e);
+                }
+                log.error("Cannot journal ZAPI updates to {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void destroy() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
     @Override
     public void startOutput(String reportDirectory, String suiteName){
 
@@ -104,48 +189,32 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
             log.info("onFinish: Cycle: " + cycleName + ", version: " + version + ", manager: " + executionManager + " - " + this.toString());
             log.info("********************************************\r\n\r\n");
 
+            mediaTasks.drain(mediaDrainSeconds);
             log.info("Finally: List of Passed TCs: " + passedTCs.toString());
             log.info("Finally: List of Skipped TCs: " + skippedTCs.toString());
             log.info("Finally: List of Failed TCs: " + errorTCs.toString());
 
             /**
-             * Update Test Cases execution Status
+             * Update Test Cases execution Status, one bulk update per status, once the updates of the test cases are
+             * sent: the bulk updates span test cases, so the outbox does not order them after those
              */
-            try {
-                if (passedTCs.size() != 0) {
-                    log.info("Update as PASS the following TCs: " + passedTCs.toString() + " at version: " + version.trim() + " on cycle: " + cycleName.trim());
-                    executionManager.updateTestExecutions(project, version.trim(), cycleName.trim(), new ArrayList<>(passedTCs), pass);
-                }
-            } catch (Exception e) {
-                log.info("The update of PASSED TCs on jira did not happen due to: " + e.getMessage());
+            if (!offline && !outbox.drain(outboxDrainSeconds)) {
+                log.info("The update of some TCs on jira did not happen within {} seconds", outboxDrainSeconds);
             }
-
-            try {
-                if (skippedTCs.size() != 0) {
-                    log.info("Update as SKIPPED the following TCs: " + skippedTCs.toString() + " at version: " + version.trim() + " on cycle: " + cycleName.trim());
-                    executionManager.updateTestExecutions(project, version.trim(), cycleName.trim(), new ArrayList<>(skippedTCs), skip);
-                }
-            } catch (Exception e2) {
-                log.info("The update on SKIPPED jira did not happen due to: " + e2.getMessage());
-            }
-
-            try {
-                if (failedTCs.size() != 0) {
-                    log.info("Update as FAIL the following TCs: " + failedTCs.toString() + " at version: " + version.trim() + " on cycle: " + cycleName.trim());
-                    executionManager.updateTestExecutions(project, version.trim(), cycleName.trim(), new ArrayList<>(failedTCs), fail);
-                }
-            } catch (Exception e1) {
-                log.info("The update of FAILED TCs on jira did not happen due to: " + e1.getMessage());
+            Set<String> failedOrErrorTCs = new HashSet<>(failedTCs);
+            failedOrErrorTCs.addAll(errorTCs);
+            updateStatus("PASS", passedTCs, pass);
+            updateStatus("SKIPPED", skippedTCs, skip);
+            updateStatus("FAIL", failedOrErrorTCs, fail);
+
+            if (!offline && !outbox.drain(outboxDrainSeconds)) {
+                log.info("The update of some TCs on jira did not happen within {} seconds", outboxDrainSeconds);
             }
-
-            try {
-                if (errorTCs.size() != 0) {
-                    log.info("Update as FAIL the following TCs: " + errorTCs.toString() + " at version: " + version.trim() + " on cycle: " + cycleName.trim());
-                    executionManager.updateTestExecutions(project, version.trim(), cycleName.trim(), new ArrayList<>(errorTCs), fail);
-                }
-            } catch (Exception e1) {
-                log.info("The update of FAILED TCs on jira did not happen due to: " + e1.getMessage());
+            if (journal != null) {
+                journal.sync();
+                log.info("ZAPI updates journaled to {}", journal.getFile());
             }
+            requestMetrics.logSummary();
         }
 
         return failed;
@@ -156,10 +225,9 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
     public void startAnaxTest(Test test) {
         if (enabled) {
             if (testStepStatusUpdateEnabled) {
-                tcSteps = executionManager.getTestCaseSteps(project, version.trim(), cycleName.trim(), test.getTestBeanName());
-                if (CollectionUtils.isEmpty(tcSteps)) {
-                    tcComment = new HashMap<>();
-                }
+                List<String> steps = offline ? null //steps not known offline, report on the tc execution
+                        : executionManager.getTestCaseSteps(project, version.trim(), cycleName.trim(), test.getTestBeanName());
+                tcSteps.put(test.getTestBeanName(), steps != null ? steps : Collections.emptyList());
             }
         }
     }
@@ -171,10 +239,15 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
 
             if (videoEnable) {
                 try {
-                    File base = new File(videoBaseDirectory);
-                    base.mkdirs();
-                    videoMaker = new VideoMaker(new File(videoBaseDirectory + "/" + test.getTestBeanName() + "_" + testMethod.getTestMethod().getName() + ".mov").toPath(),
-                            videoFramesPerSec, videoWaitSeconds);
+                    CaptureProfile profile = CaptureProfile.builder()
+                            .framesPerSec("browser".equalsIgnoreCase(videoSource) ? videoBrowserFramesPerSec : videoFramesPerSec)
+                            .scale(videoScale).depth(videoDepth).build();
+                    screenRecorder = "browser".equalsIgnoreCase(videoSource)
+                            ? ScreenRecorder.shared(() -> new BrowserCapture(this::takeBrowserScreenshot, profile), videoBufferSeconds, videoBufferMegabytes)
+                            : ScreenRecorder.shared(profile, videoBufferSeconds, videoBufferMegabytes);
+                    long videoStart = System.currentTimeMillis();
+                    videoStarts.put(test.getTestBeanName(), videoStart);
+                    screenRecorder.keepOnExit(test.getTestBeanName(), videoStart, getVideoPath(test, testMethod).toPath());
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -194,38 +267,62 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
                 passedTCs.add(test.getTestBeanName());
             }
 
-            if(CollectionUtils.isEmpty(tcSteps)){
+            List<String> steps = steps(test);
+            if(CollectionUtils.isEmpty(steps)){
                 if(!testMethod.isPassed() && testMethod.getDescription() != null) {
-                    tcComment.put((testMethod.getOrdering() + 1), testMethod.getDescription());
+                    tcComments.computeIfAbsent(test.getTestBeanName(), it -> new HashMap<>()).put((testMethod.getOrdering() + 1), testMethod.getDescription());
                 }
             }
 
+            Long videoStart = videoStarts.remove(test.getTestBeanName());
+            if (screenRecorder != null) {
+                screenRecorder.discardOnExit(test.getTestBeanName());
+            }
             if (videoEnable) {
-                if (videoMaker != null) {
-                    try {
-                        videoMaker.completeVideo();
-                        if(CollectionUtils.isEmpty(tcSteps)) {//attach to tc
-                            if (!testMethod.isPassed()) {
+                if (screenRecorder != null && videoStart != null && !testMethod.isPassed()) { // the recording is only kept for failures
+                    ScreenRecorder.Clip clip = screenRecorder.clip(videoStart);
+                    File recording = getVideoPath(test, testMethod);
+                    boolean attachOnTc = CollectionUtils.isEmpty(steps);
+                    mediaTasks.submit("video " + recording, () -> {
+                        try {
+                            if (clip.write(recording.toPath()) && attachOnTc) {//attach to tc
                                 attachVideoOnTc(test, testMethod);
                             }
+                        } catch (Exception e) {
+                            log.info("Failed to complete video recording - recordings enabled? {}", e.getMessage(), e);
                         }
-
-                    } catch (Exception e) {
-                        log.info("Failed to complete video recording - recordings enabled? {}", e.getMessage(), e);
-                    }
+                    });
                 }
             }
 
             if (testStepStatusUpdateEnabled) {
-                if(!CollectionUtils.isEmpty(tcSteps)) {
-                    File screenshot = null;
+                if(!CollectionUtils.isEmpty(steps)) {
+                    byte[] screenshot = null;
                     File video = null;
 
                     if(!testMethod.isPassed()) {
-                        screenshot = (screenshotEnable) ? takeScreenshotReturnPath(test, testMethod) : null;
+                        screenshot = (screenshotEnable) ? takeScreenshot() : null;
                         video = (videoEnable) ? getVideoPath(test,testMethod) : null;
                     }
-                    executionManager.updateTestStepStatusAddAttachments(project, version.trim(), cycleName.trim(), test.getTestBeanName(), getTestStepStatusCode(testMethod), testMethod, screenshot, video);
+                    String statusCode = getTestStepStatusCode(testMethod);
+                    byte[] stepScreenshot = screenshot;
+                    File stepVideo = video;
+                    // after the video of the test, queued before
+                    mediaTasks.submit("step status " + test.getTestBeanName(), () -> {
+                        File screenshotFile = stepScreenshot != null ? writeScreenshot(test, testMethod, stepScreenshot) : null;
+                        submit(update(ZapiUpdate.Type.STEP_STATUS, test)
+                                .status(statusCode)
+                                .step(testMethod.getOrdering())
+                                .comment(testMethod.getDescription())
+                                .build());
+                        // each file on its own, so that a failed upload is retried without uploading the others again
+                        if (screenshotFile != null) {
+                            submit(update(ZapiUpdate.Type.STEP_ATTACHMENT, test).step(testMethod.getOrdering()).attachment(screenshotFile.getPath()).build());
+                        }
+                        if (stepVideo != null && stepVideo.exists()) {
+                            submit(update(ZapiUpdate.Type.STEP_ATTACHMENT, test).step(testMethod.getOrdering()).attachment(stepVideo.getPath()).build());
+                        }
+                    });
                 }
             }
         }
@@ -233,6 +330,8 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
 
     @Override
     public void endAnaxTest(Test test) {
+        List<String> steps = tcSteps.remove(test.getTestBeanName());
+        Map<Integer, String> tcComment = tcComments.remove(test.getTestBeanName());
         if (enabled) {
 
             errorTCs.forEach(it -> passedTCs.remove(it));
@@ -241,12 +340,15 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
 
 
             if (testStepStatusUpdateEnabled) {
-                if (!passedTCs.contains(test.getTestBeanName()) && CollectionUtils.isEmpty(tcSteps) && !tcComment.isEmpty()) {//is not pass and has no steps
-                    executionManager.updateTestExecutionComment(project, version.trim(), cycleName.trim(), test.getTestBeanName(), "Failed Steps:\n" + tcCommentPrettyPrint(tcComment));
+                if (!passedTCs.contains(test.getTestBeanName()) && CollectionUtils.isEmpty(steps) && !CollectionUtils.isEmpty(tcComment)) {//is not pass and has no steps
+                    submit(update(ZapiUpdate.Type.COMMENT, test).comment("Failed Steps:\n" + tcCommentPrettyPrint(tcComment)).build());
                 }
             }
 
-            executionManager.updateTestExecutionBugs(project, version.trim(), cycleName.trim(), test.getTestBeanName(),anaxIssueAnnotationResolver.resolveBugsFromAnnotation(test.getTestIssues()));
+            List<String> bugs = anaxIssueAnnotationResolver.resolveBugsFromAnnotation(test.getTestIssues());
+            if (!CollectionUtils.isEmpty(bugs)) {
+                submit(update(ZapiUpdate.Type.BUGS, test).bugs(bugs).build());
+            }
         }
     }
 
@@ -268,11 +370,8 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
             failed = true;
 
             skippedTCs.add(test.getTestBeanName());
-            if (CollectionUtils.isEmpty(tcSteps)) {//no-steps add attachment on tc execution
-                if (screenshotEnable) {
-                    File file = takeScreenshotReturnPath(test, method);
-                    executionManager.addExecutionAttachment(project, version, cycleName, test.getTestBeanName(), file);
-                }
+            if (CollectionUtils.isEmpty(steps(test))) {//no-steps add attachment on tc execution
+                attachScreenshotOnTc(test, method);
             }
         }
     }
@@ -285,11 +384,8 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
             failed = true;
 
             errorTCs.add(test.getTestBeanName());
-            if (CollectionUtils.isEmpty(tcSteps)) {//no-steps add attachment on tc execution
-                if (screenshotEnable) {
-                    File file = takeScreenshotReturnPath(test, method);
-                    executionManager.addExecutionAttachment(project, version, cycleName, test.getTestBeanName(), file);
-                }
+            if (CollectionUtils.isEmpty(steps(test))) {//no-steps add attachment on tc execution
+                attachScreenshotOnTc(test, method);
             }
         }
     }
@@ -302,12 +398,22 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
 
     @Override
     public void videoRecording(boolean enable, String videoBaseDirectory) {
+        if (enable && parallelThreads > 0 && "browser".equalsIgnoreCase(videoSource)) {
+            // the screenshots would be of the default controller, not of the browsers leased by the parallel Tests
+            throw new IllegalStateException("Cannot record the browser with anax.parallel.threads=" + parallelThreads + ", set anax.video.source=screen");
+        }
         this.videoEnable = enable;
         this.videoBaseDirectory = videoBaseDirectory;
     }
 
     //Create cycle
     private void initialiseCycles(String projectName, String versionName, String cycleName) {
+        if (journal != null) {
+            journal.append(ZapiUpdate.builder().type(ZapiUpdate.Type.CYCLE).project(projectName).version(versionName.trim()).cycle(cycleName.trim()).build());
+        }
+        if (offline) {
+            return;
+        }
         try{
             cycleCreator.createCycleInVersion(projectName,versionName.trim(), cycleName.trim());
         }catch (Exception e){
@@ -315,21 +421,50 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
         }
     }
 
-    //Return path of screenshot
-    private File takeScreenshotReturnPath(Test test, TestMethod method){
-        String path = resultsZapiDirectory + "/" + test.getTestBeanName() + "_" + method.getTestMethod().getName()+".png";
+    //Takes a screenshot now, the page changes once the next test runs
+    private byte[] takeScreenshot(){
+        try {
+            return controller.takeScreenShotAsBytes();
+        } catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    //Writes a screenshot, returns its path
+    private File writeScreenshot(Test test, TestMethod method, byte[] screenshot){
+        File file = new File(resultsZapiDirectory + "/" + test.getTestBeanName() + "_" + method.getTestMethod().getName()+".png");
+        try {
+            FileUtils.writeByteArrayToFile(file, screenshot);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        return file;
+    }
+
+    //attach screenshot on tc when no steps available, in the background
+    private void attachScreenshotOnTc(Test test, TestMethod method) {
         if (screenshotEnable) {
-            try {
-                FileUtils.writeByteArrayToFile(new File(path), controller.takeScreenShotAsBytes());
-            } catch (IOException e) {
-                e.printStackTrace();
+            byte[] screenshot = takeScreenshot();
+            if (screenshot != null) {
+                mediaTasks.submit("screenshot " + test.getTestBeanName(), () -> submit(update(ZapiUpdate.Type.ATTACHMENT, test)
+                        .attachment(writeScreenshot(test, method, screenshot).getPath()).build()));
             }
         }
-        return new File(path);
     }
 
 
     //Returns video path
+    /**
+     * Takes a screenshot of the browser for its recording, between the commands of the Test; none while an alert is
+     * open, the driver would dismiss it
+     * @return the PNG screenshot, null if none was taken
+     * @throws Exception if the screenshot fails
+     */
+    private byte[] takeBrowserScreenshot() throws Exception {
+        return SerializedWebController.between(controller, () -> controller.isAlertPresent() ? null : controller.takeScreenShotAsBytes());
+    }
+
     private File getVideoPath(Test test, TestMethod method){
         return new File(videoBaseDirectory + "/" + test.getTestBeanName() + "_" + method.getTestMethod().getName() + ".mov");
     }
@@ -338,15 +473,40 @@ public class AnaxZapiReporter implements AnaxTestReporter, ReporterSupportsScree
     private void attachVideoOnTc(Test test, TestMethod method) {
         File recording = getVideoPath(test,method);
         if (recording.exists()) {
-            try {
-                executionManager.addExecutionAttachment(project, version, cycleName, test.getTestBeanName(), recording);
-                log.info("Attached video..");
-            } catch (Exception e) {
-                log.error("Exception when adding video to attachments {}", e.getMessage(), e);
-            }
+            submit(update(ZapiUpdate.Type.ATTACHMENT, test).attachment(recording.getPath()).build());
+        }
+    }
+
+    //Journal an update, then queue it to be sent unless offline
+    private void submit(ZapiUpdate update) {
+        if (journal != null) {
+            journal.append(update);
+        }
+        if (!offline) {
+            outbox.submit(update);
         }
     }
 
+    //Queue the tcs of a status as one bulk update
+    private void updateStatus(String statusName, Set<String> tcs, String statusCode) {
+        if (tcs.size() != 0) {
+            log.info("Update as " + statusName + " the following TCs: " + tcs.toString() + " at version: " + version.trim() + " on cycle: " + cycleName.trim());
+            submit(ZapiUpdate.builder().type(ZapiUpdate.Type.STATUS)
+                    .project(project).version(version.trim()).cycle(cycleName.trim())
+                    .testCases(new ArrayList<>(tcs)).status(statusCode).build());
+        }
+    }
+
+    //Returns an update of the execution of a tc
+    private ZapiUpdate.ZapiUpdateBuilder update(ZapiUpdate.Type type, Test test) {
+        return ZapiUpdate.builder().type(type).project(project).version(version.trim()).cycle(cycleName.trim()).testCase(test.getTestBeanName());
+    }
+
+    //Returns the steps of a running tc, empty if it has none or they are not updated
+    private List<String> steps(Test test) {
+        return tcSteps.getOrDefault(test.getTestBeanName(), Collections.emptyList());
+    }
+
     //Returns status code
     private String getTestStepStatusCode(TestMethod testMethod){
         if (testMethod.isPassed()){
@@ -0,0 +1,203 @@
+package org.anax.framework.reporting.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * The executions of a cycle, indexed by the lowercased value of the attribute the test cases are searched by, e.g. the
+ * label. Built once per cycle from the execution list, read as a stream, then looked up for every test case of the run.
+ * <p>
+ * A value is found, in this order, as the whole attribute, as one of its labels, split on commas and spaces, or as the
+ * start of a label, through a trie of the labels; only if none matches, as any part of the attribute. When more than
+ * one execution matches, the first in the list is returned, as the list was searched before.
+ */
+@Slf4j
+class ExecutionIndex {
+
+    private static final JsonFactory JSON = new JsonFactory();
+    private static final Pattern LABEL_SEPARATOR = Pattern.compile("[,;\\s]+");
+
+    /** the id and the attribute of each execution, in the order of the execution list */
+    private final List<String> ids = new ArrayList<>();
+    private final List<String> values = new ArrayList<>();
+    /** the first execution of each attribute and of each label */
+    private final Map<String, Integer> byValue = new HashMap<>();
+    private final Map<String, Integer> byLabel = new HashMap<>();
+    private final Node labels = new Node();
+    /** the values looked up and not found */
+    private final Set<String> misses = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Reads the executions of a cycle, as returned by ZAPI, keeping only their id and attribute
+     * @param executions the execution list, {@code {"executions": [{"id": 1, "label": "..."}, ...], ...}}
+     * @param attribute the attribute the test cases are searched by
+     * @return the index
+     * @throws IOException if the list cannot be read or parsed
+     */
+    static ExecutionIndex read(InputStream executions, String attribute) throws IOException {
+        ExecutionIndex index = new ExecutionIndex();
+        try (JsonParser parser = JSON.createParser(executions)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Not an execution list, starts with " + parser.getCurrentToken());
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if ("executions".equals(field) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() == JsonToken.START_OBJECT) {
+                        readExecution(parser, attribute, index);
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return index;
+    }
+
+    private static void readExecution(JsonParser parser, String attribute, ExecutionIndex index) throws IOException {
+        String id = null;
+        String value = "";
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("id".equals(field) && token.isScalarValue()) {
+                id = parser.getText();
+            } else if (attribute.equals(field)) {
+                value = readValue(parser, token);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        if (id == null) {
+            throw new IOException("Execution without id in the execution list");
+        }
+        index.add(id, value);
+    }
+
+    /** the text of a scalar, or the texts of an array joined with commas */
+    private static String readValue(JsonParser parser, JsonToken token) throws IOException {
+        if (token == JsonToken.START_ARRAY) {
+            StringBuilder value = new StringBuilder();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (parser.getCurrentToken().isScalarValue()) {
+                    value.append(value.length() > 0 ? "," : "").append(parser.getText());
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            return value.toString();
+        }
+        if (token == JsonToken.VALUE_NULL || !token.isScalarValue()) {
+            parser.skipChildren();
+            return "";
+        }
+        return parser.getText();
+    }
+
+    /**
+     * Adds an execution, after the ones added before
+     * @param id the execution id
+     * @param value the value of its attribute
+     */
+    void add(String id, String value) {
+        int execution = ids.size();
+        String lowerCase = value.toLowerCase();
+        ids.add(id);
+        values.add(lowerCase);
+        byValue.putIfAbsent(lowerCase, execution);
+        for (String label : LABEL_SEPARATOR.split(lowerCase)) {
+            if (!label.isEmpty()) {
+                byLabel.putIfAbsent(label, execution);
+                labels.add(label, execution);
+            }
+        }
+    }
+
+    /**
+     * Returns the execution whose attribute or one of its labels is the value, or else the first one with a label that
+     * starts with it, or else the first one whose attribute contains it
+     * @param value the value of the attribute, in any case
+     * @return the execution id, null if none matches
+     */
+    String find(String value) {
+        String lowerCase = value.toLowerCase();
+        Integer execution = byValue.get(lowerCase);
+        if (execution == null) {
+            execution = byLabel.get(lowerCase);
+        }
+        if (execution == null) {
+            Node prefixed = labels.find(lowerCase);
+            if (prefixed != null) {
+                if (prefixed.ambiguous) {
+                    log.warn("More than one execution has a label starting with '{}', using the first", value);
+                }
+                execution = prefixed.first;
+            }
+        }
+        if (execution == null) {
+            for (int i = 0; i < values.size() && execution == null; i++) {
+                if (values.get(i).contains(lowerCase)) {
+                    execution = i;
+                }
+            }
+        }
+        return execution != null ? ids.get(execution) : null;
+    }
+
+    /**
+     * Records a value that was not found
+     * @param value the value of the attribute, in any case
+     * @return true the first time the value is recorded, i.e. the executions may be reloaded for it
+     */
+    boolean miss(String value) {
+        return misses.add(value.toLowerCase());
+    }
+
+    /**
+     * @return the number of executions
+     */
+    int size() {
+        return ids.size();
+    }
+
+    /** a trie of the labels; each node knows the first execution with a label that starts with its prefix */
+    private static class Node {
+        private final Map<Character, Node> children = new HashMap<>(4);
+        private int first = -1;
+        /** whether more than one execution has a label that starts with the prefix */
+        private boolean ambiguous;
+
+        void add(String label, int execution) {
+            Node node = this;
+            for (int i = 0; i < label.length(); i++) {
+                node = node.children.computeIfAbsent(label.charAt(i), it -> new Node());
+                if (node.first < 0) {
+                    node.first = execution;
+                } else if (node.first != execution) {
+                    node.ambiguous = true;
+                }
+            }
+        }
+
+        Node find(String prefix) {
+            Node node = this;
+            for (int i = 0; i < prefix.length() && node != null; i++) {
+                node = node.children.get(prefix.charAt(i));
+            }
+            return node != this && node != null && node.first >= 0 ? node : null;
+        }
+    }
+}
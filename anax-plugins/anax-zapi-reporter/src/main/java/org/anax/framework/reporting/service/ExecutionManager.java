@@ -1,12 +1,14 @@
 package org.anax.framework.reporting.service;
 
 import lombok.extern.slf4j.Slf4j;
-import org.anax.framework.model.TestMethod;
 import org.anax.framework.reporting.model.Results;
+import org.anax.framework.reporting.model.TestStepExecution;
+import org.anax.framework.reporting.model.ZapiUpdate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import org.springframework.util.CollectionUtils;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -49,7 +51,7 @@ public class ExecutionManager {
         executionIds.removeAll(Collections.singleton(""));//remove the execution ids that were not found and service returned ''
 
         Results results = Results.builder().executions(executionIds).status(tcStatus).build();
-        try{ zapiService.updateBulkResults(results); }catch(Exception e){ log.error("Error during the update of TC: "+e.getMessage()); }
+        zapiService.updateBulkResults(results);
     }
 
     /**
@@ -90,31 +92,53 @@ public class ExecutionManager {
     }
 
     /**
-     * Update status for each test step, on not pass -> add screenshot and video if are enabled
+     * Update status for some test steps of a tc. The steps of the tc execution are fetched once for all of them; the
+     * status is set, not added, so the steps can be updated again after a failure
      * @param projectName
      * @param versionName
      * @param cycleName
      * @param tcAttribute
-     * @param status
-     * @param testMethod
+     * @param steps the {@link ZapiUpdate.Type#STEP_STATUS} updates of the tc
      */
-    public void updateTestStepStatusAddAttachments(String projectName, String versionName, String cycleName, String tcAttribute, String status, TestMethod testMethod, File screenshot, File video){
-        String tcStepExecutionId;
+    public void updateTestStepsStatus(String projectName, String versionName, String cycleName, String tcAttribute, List<ZapiUpdate> steps){
         String tcExecutionId = zapiService.getIssueExecutionIdViaAttributeValue(projectName,versionName,cycleName, resolveTcToIssue(tcAttribute));
-        if(!tcExecutionId.isEmpty()) {
-            tcStepExecutionId = zapiService.getTestStepExecutionId(tcExecutionId, testMethod.getOrdering());
+        if(tcExecutionId.isEmpty()) {
+            log.error("Check: No test case execution Id found for tc: {} at project: '{}' and version: '{}' in order to update test step status!!!", tcAttribute,projectName,versionName);
+            return;
+        }
+        List<TestStepExecution> stepExecutions = zapiService.getTestSteps(tcExecutionId);
+        for (ZapiUpdate step : steps) {
+            String tcStepExecutionId = zapiService.getTestStepIdViaOrder(stepExecutions, step.getStep());
             if (!tcStepExecutionId.isEmpty()) {
-                zapiService.updateTestStepStatus(tcStepExecutionId, status,testMethod);
-                if(screenshot != null){zapiService.addStepExecutionAttachments(tcStepExecutionId,screenshot);}
-                if(video != null){zapiService.addStepExecutionAttachments(tcStepExecutionId,video);}
+                zapiService.updateTestStepStatus(tcStepExecutionId, step.getStatus(), step.getComment());
             } else {
-                log.info("No test step found for this tc: {} in order to update test steps status", tcAttribute);
+                log.info("No test step {} found for this tc: {} in order to update test steps status", step.getStep() + 1, tcAttribute);
             }
-        }else{
-            log.error("Check: No test case execution Id found for tc: {} at project: '{}' and version: '{}' in order to update test step status/attachments!!!", tcAttribute,projectName,versionName);
         }
     }
 
+    /**
+     * Add attachment on a test step of a tc, e.g. its screenshot or video
+     * @param projectName
+     * @param versionName
+     * @param cycleName
+     * @param tcAttribute
+     * @param step the ordering of the step, from 0
+     * @param file
+     */
+    public void addStepExecutionAttachment(String projectName, String versionName, String cycleName, String tcAttribute, int step, File file){
+        String tcExecutionId = zapiService.getIssueExecutionIdViaAttributeValue(projectName,versionName,cycleName, resolveTcToIssue(tcAttribute));
+        if(tcExecutionId.isEmpty()) {
+            log.error("Check: No test case execution Id found for tc: {} at project: '{}' and version: '{}' in order to add step attachments!!!", tcAttribute,projectName,versionName);
+            return;
+        }
+        String tcStepExecutionId = zapiService.getTestStepIdViaOrder(zapiService.getTestSteps(tcExecutionId), step);
+        if (!tcStepExecutionId.isEmpty()) {
+            zapiService.addStepExecutionAttachments(tcStepExecutionId, file);
+        } else {
+            log.info("No test step {} found for this tc: {} in order to add attachments", step + 1, tcAttribute);
+        }
+    }
 
     /**
      * Returns a list of steps executions
@@ -126,9 +150,13 @@ public class ExecutionManager {
      */
     public List<String> getTestCaseSteps(String projectName, String versionName, String cycleName, String tcAttribute){
         List<String> tcStepExecutionIds = new ArrayList<>();
-        String tcExecutionId = zapiService.getIssueExecutionIdViaAttributeValue(projectName,versionName,cycleName, resolveTcToIssue(tcAttribute));
-        if(!tcExecutionId.isEmpty()) {
-            tcStepExecutionIds = zapiService.getTestSteps(tcExecutionId);
+        try {
+            String tcExecutionId = zapiService.getIssueExecutionIdViaAttributeValue(projectName,versionName,cycleName, resolveTcToIssue(tcAttribute));
+            if(!tcExecutionId.isEmpty()) {
+                tcStepExecutionIds = zapiService.getTestSteps(tcExecutionId);
+            }
+        } catch (RestClientException e) {//the test runs on, reported on the tc execution
+            log.error("Cannot get the test steps of tc: {}: {}", tcAttribute, e.getMessage());
         }
         return tcStepExecutionIds;
 
@@ -0,0 +1,163 @@
+package org.anax.framework.reporting.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.reporting.model.ZapiUpdate;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An append only journal of the ZAPI updates of a run, one JSON object per line, so that the results survive Jira
+ * being unreachable and can be sent later, see {@link ZapiJournalReplayer}. The file is synced to the disk every few
+ * updates and when the journal is synced or closed, not on every update.
+ */
+@Slf4j
+public class ZapiJournal implements Closeable {
+
+    private final File file;
+    private final FileChannel channel;
+    /** the updates appended between two syncs at most */
+    private final int syncEvery;
+    private int unsynced;
+
+    /**
+     * @param file the journal, appended to if it exists
+     * @param syncEvery the updates appended between two syncs at most
+     * @throws IOException if the journal cannot be opened
+     */
+    public ZapiJournal(File file, int syncEvery) throws IOException {
+        this.file = file;
+        this.syncEvery = Math.max(1, syncEvery);
+        if (file.getAbsoluteFile().getParentFile() != null) {
+            Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+        }
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Appends an update, syncing the journal if enough updates were appended since the last sync
+     * @param update the update
+     */
+    public synchronized void append(ZapiUpdate update) {
+        try {
+            ByteBuffer line = ByteBuffer.wrap((toJson(update) + "\n").getBytes(StandardCharsets.UTF_8));
+            while (line.hasRemaining()) {
+                channel.write(line);
+            }
+            if (++unsynced >= syncEvery) {
+                sync();
+            }
+        } catch (IOException | JSONException e) {
+            log.error("ZAPI update not journaled to {}: {}", file, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the updates appended so far to the disk
+     */
+    public synchronized void sync() {
+        if (unsynced == 0 || !channel.isOpen()) {
+            return;
+        }
+        try {
+            channel.force(false);
+            unsynced = 0;
+        } catch (IOException e) {
+            log.error("Failed to sync ZAPI journal {}: {}", file, e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        sync();
+        channel.close();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Reads the updates of a journal, up to a last line that was not completely written, if any
+     * @param file the journal
+     * @return the updates, in the order they were appended
+     * @throws IOException if the journal cannot be read
+     */
+    public static List<ZapiUpdate> read(File file) throws IOException {
+        List<ZapiUpdate> updates = new ArrayList<>();
+        List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty()) {
+                continue;
+            }
+            try {
+                updates.add(fromJson(line));
+            } catch (JSONException | IllegalArgumentException e) {
+                log.warn("ZAPI journal {} is cut at line {}, {} updates read: {}", file, i + 1, updates.size(), e.getMessage());
+                break;
+            }
+        }
+        return updates;
+    }
+
+    static String toJson(ZapiUpdate update) throws JSONException {
+        JSONObject json = new JSONObject();
+        json.put("type", update.getType().name());
+        json.put("project", update.getProject());
+        json.put("version", update.getVersion());
+        json.put("cycle", update.getCycle());
+        if (update.getTestCases() != null) json.put("testCases", new JSONArray(update.getTestCases()));
+        json.put("testCase", update.getTestCase());
+        json.put("status", update.getStatus());
+        json.put("step", update.getStep());
+        json.put("comment", update.getComment());
+        if (update.getBugs() != null) json.put("bugs", new JSONArray(update.getBugs()));
+        json.put("attachment", update.getAttachment());
+        return json.toString();
+    }
+
+    static ZapiUpdate fromJson(String line) throws JSONException {
+        JSONObject json = new JSONObject(line);
+        return ZapiUpdate.builder()
+                .type(ZapiUpdate.Type.valueOf(json.getString("type")))
+                .project(string(json, "project"))
+                .version(string(json, "version"))
+                .cycle(string(json, "cycle"))
+                .testCases(strings(json, "testCases"))
+                .testCase(string(json, "testCase"))
+                .status(string(json, "status"))
+                .step(json.isNull("step") ? null : json.getInt("step"))
+                .comment(string(json, "comment"))
+                .bugs(strings(json, "bugs"))
+                .attachment(string(json, "attachment"))
+                .build();
+    }
+
+    private static String string(JSONObject json, String name) throws JSONException {
+        return json.isNull(name) ? null : json.getString(name);
+    }
+
+    private static List<String> strings(JSONObject json, String name) throws JSONException {
+        if (json.isNull(name)) {
+            return null;
+        }
+        JSONArray array = json.getJSONArray(name);
+        List<String> values = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            values.add(array.getString(i));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,114 @@
+package org.anax.framework.reporting.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.reporting.configuration.RestTemplateConfig;
+import org.anax.framework.reporting.configuration.ZapiConfig;
+import org.anax.framework.reporting.model.ZapiUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.annotation.Import;
+import org.springframework.util.StringUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sends the updates of a {@link ZapiJournal} to ZAPI, e.g. of a run with {@code zapi.offline}, from a main of its own,
+ * with the classpath and the properties of the tests:
+ * {@code java org.anax.framework.reporting.service.ZapiJournalReplayer --zapi.replay=zapi-results/zapi-journal-20191001-120000.jsonl}
+ * <p>
+ * Only the ZAPI services are started, not the tests, the browsers or the reporters. A test application with resolvers
+ * of its own, see {@link ZapiConfig}, replays with them through {@link #replay(String[], Class[])}.
+ * <p>
+ * The updates are sent one at a time, in the order they were journaled. Each one changes Jira once: it sets statuses,
+ * a comment or bugs, which is the same when done again, or uploads a single file, as each screenshot and video is
+ * journaled on its own. The number of updates sent is kept next to the journal, in a {@code .replayed} file, after
+ * each of them, and the replay stops at the first update that cannot be sent; replaying the journal again continues
+ * from there. Only an upload that reached Jira but whose response was lost, e.g. on a read timeout, is sent twice.
+ */
+@Slf4j
+public class ZapiJournalReplayer implements CommandLineRunner {
+
+    @Autowired
+    protected CycleCreator     cycleCreator;
+    @Autowired
+    protected ExecutionManager executionManager;
+
+    /** the journal to replay */
+    @Value("${zapi.replay:}") String journal;
+    @Value("${zapi.outbox.attempts:5}") Integer attempts;
+    @Value("${zapi.outbox.retryDelayMs:1000}") Long retryDelayMs;
+
+    /**
+     * Replays the journal of {@code --zapi.replay}, and exits with 0 if it was completely replayed, 1 otherwise
+     * @param args the arguments, e.g. the properties of the replay
+     */
+    public static void main(String[] args) {
+        replay(args);
+    }
+
+    /**
+     * Replays the journal of {@code --zapi.replay} with the ZAPI services only, and exits
+     * @param args the arguments, e.g. the properties of the replay
+     * @param configurations the configurations of the test application to replay with, e.g. its resolvers
+     */
+    public static void replay(String[] args, Class<?>... configurations) {
+        Class<?>[] sources = Arrays.copyOf(configurations, configurations.length + 1);
+        sources[configurations.length] = ReplayConfiguration.class; // after them, for the defaults to be skipped
+        new SpringApplicationBuilder(sources).web(WebApplicationType.NONE).run(args);
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        if (StringUtils.isEmpty(journal)) {
+            throw new IllegalArgumentException("No ZAPI journal to replay, set --zapi.replay");
+        }
+        boolean replayed = replay(new File(journal));
+        log.info("ZAPI journal {} {}", journal, replayed ? "replayed [0]" : "not completely replayed [1]");
+        System.exit(replayed ? 0 : 1);
+    }
+
+    /**
+     * Sends the updates of a journal not sent by an earlier replay
+     * @param journal the journal
+     * @return true if all its updates were sent, false if the replay stopped at one that could not be sent
+     * @throws IOException if the journal or its progress cannot be read or written
+     */
+    public boolean replay(File journal) throws IOException {
+        File progress = new File(journal.getPath() + ".replayed");
+        int replayed = progress.exists() ? Integer.parseInt(new String(Files.readAllBytes(progress.toPath()), StandardCharsets.UTF_8).trim()) : 0;
+        List<ZapiUpdate> updates = ZapiJournal.read(journal);
+        log.info("Replaying {} of the {} ZAPI updates of {}", Math.max(0, updates.size() - replayed), updates.size(), journal);
+
+        for (int i = replayed; i < updates.size(); i++) {
+            ZapiUpdate update = updates.get(i);
+            boolean sent;
+            if (update.getType() == ZapiUpdate.Type.CYCLE) {
+                cycleCreator.createCycleInVersion(update.getProject(), update.getVersion(), update.getCycle());
+                sent = true;
+            } else {
+                sent = ZapiOutbox.send(executionManager, Collections.singletonList(update), attempts, retryDelayMs);
+            }
+            if (!sent) {
+                log.error("Replay of {} stopped at update {}: {}", journal, i + 1, update);
+                return false;
+            }
+            Files.write(progress.toPath(), String.valueOf(i + 1).getBytes(StandardCharsets.UTF_8));
+        }
+        return true;
+    }
+
+    /** not a @Configuration, so that the component scan of the tests does not replay */
+    @Import({RestTemplateConfig.class, ZapiConfig.class, ZephyrZAPIService.class, CycleCreator.class, ExecutionManager.class,
+            ZapiJournalReplayer.class})
+    static class ReplayConfiguration {
+    }
+}
@@ -0,0 +1,237 @@
+package org.anax.framework.reporting.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.anax.framework.reporting.model.ZapiUpdate;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends the ZAPI updates of the run in the background, so that the tests do not wait for Jira. The updates are queued
+ * in stripes, by test case, each sent by its own thread in the order they were queued; the updates of a test case are
+ * never reordered, those of different test cases are sent in parallel.
+ * <p>
+ * A bulk status update spans test cases, so it is queued by status instead, and may be sent before or alongside the
+ * other updates of its test cases: it is to be submitted once those are drained, see {@link #drain(long)}.
+ * <p>
+ * A thread takes all the updates queued in its stripe at once and merges them: the test cases of a status in a single
+ * bulk update, the test steps of a test case with a single lookup of the steps. An update that fails on a server or
+ * connection error is retried, waiting twice as long each time; one that is rejected, e.g. 4xx, is logged and dropped.
+ * The statuses are set, so sending them again is harmless, while each file is uploaded by an update of its own, so that
+ * a retry does not upload again the files sent before it.
+ * <p>
+ * When a stripe is full, {@link #submit(ZapiUpdate)} waits for room. {@link #drain(long)} waits for the updates
+ * queued so far, at the end of the suite.
+ */
+@Slf4j
+public class ZapiOutbox {
+
+    private final ExecutionManager executionManager;
+    private final List<BlockingQueue<ZapiUpdate>> stripes = new ArrayList<>();
+    private final int attempts;
+    private final long retryDelayMs;
+
+    /** the updates queued and not yet sent, guarded by the lock */
+    private int pending;
+    private final Object lock = new Object();
+
+    /**
+     * @param executionManager sends the updates
+     * @param threads the number of stripes, each with its thread
+     * @param capacity the number of updates each stripe may hold
+     * @param attempts how many times an update is sent at most
+     * @param retryDelayMs the wait before the first retry, doubled for each one after it
+     */
+    public ZapiOutbox(ExecutionManager executionManager, int threads, int capacity, int attempts, long retryDelayMs) {
+        this.executionManager = executionManager;
+        this.attempts = Math.max(1, attempts);
+        this.retryDelayMs = retryDelayMs;
+        for (int i = 0; i < Math.max(1, threads); i++) {
+            BlockingQueue<ZapiUpdate> stripe = new ArrayBlockingQueue<>(Math.max(1, capacity));
+            stripes.add(stripe);
+            Thread worker = new Thread(() -> work(stripe), "zapi-outbox-" + i);
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Queues an update, waiting for room if its stripe is full
+     * @param update the update
+     */
+    public void submit(ZapiUpdate update) {
+        String key = update.getType() == ZapiUpdate.Type.STATUS ? update.getStatus() : update.getTestCase();
+        BlockingQueue<ZapiUpdate> stripe = stripes.get(Math.floorMod(String.valueOf(key).hashCode(), stripes.size()));
+        synchronized (lock) {
+            pending++;
+        }
+        try {
+            stripe.put(update);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted, ZAPI update not sent: {}", update);
+            sent(1);
+        }
+    }
+
+    /**
+     * Waits for the updates queued so far to be sent
+     * @param timeoutSeconds how long to wait at most
+     * @return true if they were sent, false if some were still pending after the timeout
+     */
+    public boolean drain(long timeoutSeconds) {
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        synchronized (lock) {
+            if (pending > 0) {
+                log.info("Waiting for {} ZAPI updates to be sent", pending);
+            }
+            try {
+                for (long left = deadline - System.currentTimeMillis(); pending > 0 && left > 0; left = deadline - System.currentTimeMillis()) {
+                    lock.wait(left);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (pending > 0) {
+                log.warn("{} ZAPI updates still pending after {} seconds", pending, timeoutSeconds);
+                return false;
+            }
+            return true;
+        }
+    }
+
+    private void work(BlockingQueue<ZapiUpdate> stripe) {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<ZapiUpdate> batch = new ArrayList<>();
+            try {
+                batch.add(stripe.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            stripe.drainTo(batch);
+            try {
+                for (List<ZapiUpdate> group : merge(batch)) {
+                    send(executionManager, group, attempts, retryDelayMs);
+                }
+            } finally {
+                sent(batch.size());
+            }
+        }
+    }
+
+    /** groups the updates that are sent together, in the order of the first update of each group */
+    private static List<List<ZapiUpdate>> merge(List<ZapiUpdate> batch) {
+        Map<Object, List<ZapiUpdate>> groups = new LinkedHashMap<>();
+        for (ZapiUpdate update : batch) {
+            Object key;
+            switch (update.getType()) {
+                case STATUS:
+                    key = "status/" + update.getProject() + "/" + update.getVersion() + "/" + update.getCycle() + "/" + update.getStatus();
+                    break;
+                case STEP_STATUS:
+                    key = "steps/" + update.getProject() + "/" + update.getVersion() + "/" + update.getCycle() + "/" + update.getTestCase();
+                    break;
+                default:
+                    key = update; // on its own, or with the same update queued twice
+            }
+            groups.computeIfAbsent(key, it -> new ArrayList<>()).add(update);
+        }
+        return new ArrayList<>(groups.values());
+    }
+
+    /**
+     * Sends a group of updates, retrying on server and connection errors
+     * @param executionManager sends the updates
+     * @param group updates of the same type, merged
+     * @param attempts how many times the updates are sent at most
+     * @param retryDelayMs the wait before the first retry, doubled for each one after it
+     * @return false if they could not be sent after all the attempts, true if they were sent, or rejected and dropped
+     */
+    static boolean send(ExecutionManager executionManager, List<ZapiUpdate> group, int attempts, long retryDelayMs) {
+        ZapiUpdate first = group.get(0);
+        for (int attempt = 1; ; attempt++) {
+            try {
+                apply(executionManager, group);
+                return true;
+            } catch (HttpClientErrorException e) {
+                log.error("ZAPI {} update of {} rejected: {}", first.getType(), describe(first), e.getMessage());
+                return true;
+            } catch (RestClientException e) {
+                if (attempt >= attempts) {
+                    log.error("ZAPI {} update of {} not sent after {} attempts: {}", first.getType(), describe(first), attempt, e.getMessage());
+                    return false;
+                }
+                long delay = retryDelayMs << Math.min(attempt - 1, 16);
+                log.warn("ZAPI {} update of {} failed: {}, retrying in {}ms", first.getType(), describe(first), e.getMessage(), delay);
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            } catch (Exception e) {
+                log.error("ZAPI {} update of {} failed: {}", first.getType(), describe(first), e.getMessage(), e);
+                return true;
+            }
+        }
+    }
+
+    private static void apply(ExecutionManager executionManager, List<ZapiUpdate> group) throws Exception {
+        ZapiUpdate first = group.get(0);
+        switch (first.getType()) {
+            case STATUS: {
+                Set<String> testCases = new LinkedHashSet<>();
+                group.forEach(it -> testCases.addAll(it.getTestCases()));
+                executionManager.updateTestExecutions(first.getProject(), first.getVersion(), first.getCycle(), new ArrayList<>(testCases), first.getStatus());
+                break;
+            }
+            case STEP_STATUS:
+                executionManager.updateTestStepsStatus(first.getProject(), first.getVersion(), first.getCycle(), first.getTestCase(), group);
+                break;
+            case COMMENT:
+                executionManager.updateTestExecutionComment(first.getProject(), first.getVersion(), first.getCycle(), first.getTestCase(), first.getComment());
+                break;
+            case BUGS:
+                executionManager.updateTestExecutionBugs(first.getProject(), first.getVersion(), first.getCycle(), first.getTestCase(), first.getBugs());
+                break;
+            case ATTACHMENT:
+                executionManager.addExecutionAttachment(first.getProject(), first.getVersion(), first.getCycle(), first.getTestCase(), new File(first.getAttachment()));
+                break;
+            case STEP_ATTACHMENT:
+                executionManager.addStepExecutionAttachment(first.getProject(), first.getVersion(), first.getCycle(), first.getTestCase(), first.getStep(), new File(first.getAttachment()));
+                break;
+            default:
+                throw new IllegalArgumentException("Not an update of the executions: " + first.getType());
+        }
+    }
+
+    private void sent(int updates) {
+        synchronized (lock) {
+            pending -= updates;
+            if (pending <= 0) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private static String describe(ZapiUpdate update) {
+        switch (update.getType()) {
+            case STATUS:
+                return update.getTestCases().toString();
+            case CYCLE:
+                return update.getCycle();
+            default:
+                return update.getTestCase();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package org.anax.framework.reporting.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Times the requests of a RestTemplate by endpoint, the method and the path with its ids replaced, e.g.
+ * {@code PUT /rest/zapi/latest/execution/{id}/execute}. The time is until the response headers are received.
+ */
+@Slf4j
+public class ZapiRequestMetrics implements ClientHttpRequestInterceptor {
+
+    private static final Pattern ID = Pattern.compile("/\\d+(?=/|$)");
+
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution) throws IOException {
+        Endpoint endpoint = endpoints.computeIfAbsent(request.getMethodValue() + " " + ID.matcher(request.getURI().getPath()).replaceAll("/{id}"), it -> new Endpoint());
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            ClientHttpResponse response = execution.execute(request, body);
+            failed = response.getRawStatusCode() >= 400;
+            return response;
+        } finally {
+            endpoint.record(System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Logs the requests, the number, the errors and the latency of each endpoint, the slowest in total first
+     */
+    public void logSummary() {
+        endpoints.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, Endpoint> it) -> it.getValue().total.sum()).reversed())
+                .forEach(it -> log.info("ZAPI {}: {}", it.getKey(), it.getValue()));
+    }
+
+    private static class Endpoint {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos, boolean failed) {
+            requests.increment();
+            if (failed) {
+                errors.increment();
+            }
+            total.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        @Override
+        public String toString() {
+            long count = requests.sum();
+            return String.format("%d requests, %d errors, %dms total, %dms average, %dms max", count, errors.sum(),
+                    TimeUnit.NANOSECONDS.toMillis(total.sum()), count > 0 ? TimeUnit.NANOSECONDS.toMillis(total.sum() / count) : 0,
+                    TimeUnit.NANOSECONDS.toMillis(max.get()));
+        }
+    }
+}
@@ -3,9 +3,6 @@ package org.anax.framework.reporting.service;
 import lombok.extern.slf4j.Slf4j;
 import org.anax.framework.model.TestMethod;
 import org.anax.framework.reporting.model.*;
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
@@ -15,14 +12,14 @@ import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.IntStream;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
@@ -40,6 +37,17 @@ public class ZephyrZAPIService {
     @Value("${jira.search.tc.attribute:label}") private String attribute;
     @Value("${zapi.status.pass.code:1}")        private String pass;
 
+    /**
+     * The ids resolved during the run, by name, and the executions of each cycle by attribute value. Only what was
+     * found is kept: a miss is asked again, e.g. a cycle created since or an execution added to it. The executions of
+     * a cycle are reloaded once per missing value, by one thread at a time.
+     */
+    private final Map<String, String> projectIds = new ConcurrentHashMap<>();
+    private final Map<String, String> versionIds = new ConcurrentHashMap<>();
+    private final Map<String, String> cycleIds = new ConcurrentHashMap<>();
+    private final Map<String, ExecutionIndex> executionIndexes = new ConcurrentHashMap<>();
+    private final Map<String, Object> executionLoads = new ConcurrentHashMap<>();
+
     /**
      * Get cycle id from cycle name at UnSchedule
      * @param projectName
@@ -49,11 +57,10 @@ public class ZephyrZAPIService {
     public String getCycleId(String projectName, String versionName , String cycleName){
         String projectId = getProjectId(projectName);
         String versionId = getVersionId(projectId,versionName);
-        ResponseEntity<Map> entity = restTemplate.exchange(zapiUrl + "cycle?projectId=" + projectId+"&versionId="+versionId, HttpMethod.GET, HttpEntity.EMPTY, Map.class);
-        Map.Entry<String, Map<Object, Object>> result = new Cycles(entity.getBody()).getContents().entrySet().stream().filter(x->x.getValue().get("name").equals(cycleName)).findFirst().orElse(null);
-        if(result == null)
+        String cycleId = findCycleId(projectId, versionId, cycleName);
+        if(cycleId == null)
             log.error("No Cycle found on project: {} with this name: {}",projectName,cycleName);
-        return (result != null) ? result.getKey() : null;
+        return cycleId;
     }
 
 
@@ -63,11 +70,19 @@ public class ZephyrZAPIService {
      * @return
      */
     public String getProjectId(String projectName) {
+        String cached = projectIds.get(projectName);
+        if (cached != null) {
+            return cached;
+        }
         ProjectList projectList = restTemplate.getForObject(zapiUrl + "util/project-list", ProjectList.class);
         LabelValue labelValue = projectList.getOptions().stream().filter(data -> data.getLabel().equals(projectName)).findFirst().orElse(null);
         if(labelValue == null)
             log.error("Check: No Project found with this name: {} , program will exit!!!",projectName);
-        return (labelValue != null) ? labelValue.getValue() : "";
+        if (labelValue == null || StringUtils.isEmpty(labelValue.getValue())) {
+            return "";
+        }
+        projectIds.put(projectName, labelValue.getValue());
+        return labelValue.getValue();
     }
 
     /**
@@ -77,10 +92,7 @@ public class ZephyrZAPIService {
      * @return
      */
     public String getCycleIdUnderUnSchedule(String projectName, String cycleName){
-        String projectId = getProjectId(projectName);
-        ResponseEntity<Map> entity = restTemplate.exchange(zapiUrl + "cycle?projectId=" + projectId+"&versionId=-1", HttpMethod.GET, HttpEntity.EMPTY, Map.class);
-        Map.Entry<String, Map<Object, Object>> result = new Cycles(entity.getBody()).getContents().entrySet().stream().filter(x->x.getValue().get("name").equals(cycleName)).findFirst().orElse(null);
-        return (result != null) ? result.getKey() : null;
+        return findCycleId(getProjectId(projectName), "-1", cycleName);
     }
 
 
@@ -91,8 +103,17 @@ public class ZephyrZAPIService {
      * @return
      */
     public String getVersionId(String projectId, String versionName){
+        String key = projectId + "/" + versionName;
+        String cached = versionIds.get(key);
+        if (cached != null) {
+            return cached;
+        }
         ResponseEntity<List<Version>> versions = restTemplate.exchange(jiraUrl +"project/"+projectId+"/versions", HttpMethod.GET, new HttpEntity<>(getHeaders()),  new ParameterizedTypeReference<List<Version>>() {});
-        return versionResolver.getVersionFromJIRA(versionName, versions);
+        String versionId = versionResolver.getVersionFromJIRA(versionName, versions);
+        if (!StringUtils.isEmpty(versionId)) {
+            versionIds.put(key, versionId);
+        }
+        return versionId;
     }
 
 
@@ -102,16 +123,29 @@ public class ZephyrZAPIService {
      * @param versionName
      * @param cycleName
      * @param attributeValue
-     * @throws Exception
+     * @throws RestClientException if Jira fails or cannot be reached, rather than returning empty
      */
     public String getIssueExecutionIdViaAttributeValue(String projectName, String versionName, String cycleName, String attributeValue) {
         String projectId = getProjectId(projectName);
         String versionId = getVersionId(projectId, versionName);
         String cycleId = getCycleId(projectName, versionName, cycleName);
+        String key = projectId + "/" + versionId + "/" + cycleId;
 
         try {
-            try { Thread.sleep(1000); } catch (Exception e) {}
-            return filterDataByAttributeValue((JSONArray) new JSONObject(restTemplate.exchange(zapiUrl + "execution?projectId=" + projectId + "&versionId=" + versionId + "&cycleId=" + cycleId, HttpMethod.GET, new HttpEntity<>(getHeaders()), String.class).getBody()).get("executions"),attribute, attributeValue).get("id").toString();
+            ExecutionIndex index = executionIndexes.get(key);
+            String executionId = (index != null) ? index.find(attributeValue) : null;
+            if (executionId == null && (index == null || index.miss(attributeValue))) {//not loaded yet, or added to the cycle since
+                index = reloadExecutionIndex(key, index, projectId, versionId, cycleId);
+                executionId = index.find(attributeValue);
+                if (executionId == null) {
+                    index.miss(attributeValue); // not in the cycle, not reloaded for it again
+                }
+            }
+            if (executionId == null)
+                throw new IllegalStateException("No execution with " + attribute + " " + attributeValue);
+            return executionId;
+        } catch (RestClientException e) {
+            throw e; // Jira is unreachable or failing, not a missing execution: the update is to be retried
         } catch (Exception e) {
             e.printStackTrace();
             log.error("Check !! Issue with this label: {} was not found on project: '{}' at version: '{}' and cycle: '{}'",attributeValue,projectName,versionName,cycleName);
@@ -153,10 +187,20 @@ public class ZephyrZAPIService {
      * @param status
      */
     public void updateTestStepStatus(String testStepExecutionId, String status, TestMethod testMethod){
+        updateTestStepStatus(testStepExecutionId, status, testMethod.getDescription());
+    }
+
+    /**
+     * Update test step status
+     * @param testStepExecutionId
+     * @param status
+     * @param description the comment of the step when it did not pass
+     */
+    public void updateTestStepStatus(String testStepExecutionId, String status, String description){
         Map postBody = new HashMap();
         postBody.put("status", status);
-        if (!status.equals(pass) && !StringUtils.isEmpty(testMethod.getDescription()))//not pass and has description
-            postBody.put("comment", testMethod.getDescription());
+        if (!status.equals(pass) && !StringUtils.isEmpty(description))//not pass and has description
+            postBody.put("comment", description);
 
         restTemplate.exchange(zapiUrl + "stepResult/" + testStepExecutionId, HttpMethod.PUT, new HttpEntity<>(postBody, getHeaders()), String.class);
     }
@@ -238,20 +282,53 @@ public class ZephyrZAPIService {
     }
 
 
-    //Find the correct object in a jsonArray based on the value of an attribute,Create a list of label and then get the index of the JsonObject with this label
-    private JSONObject filterDataByAttributeValue(JSONArray jsonArray, String attribute, String labelValue) throws JSONException {
-        int index;
-        ArrayList<String> values = new ArrayList<>();
+    //Returns the cycle id, loading all the cycles of the version on a miss
+    private String findCycleId(String projectId, String versionId, String cycleName){
+        String key = projectId + "/" + versionId + "/" + cycleName;
+        String cached = cycleIds.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        ResponseEntity<Map> entity = restTemplate.exchange(zapiUrl + "cycle?projectId=" + projectId+"&versionId="+versionId, HttpMethod.GET, HttpEntity.EMPTY, Map.class);
+        new Cycles(entity.getBody()).getContents().forEach((id, cycle) -> cycleIds.putIfAbsent(projectId + "/" + versionId + "/" + cycle.get("name"), id));
+        return cycleIds.get(key);
+    }
 
-        for (int i = 0; i < jsonArray.length(); i++) {
-            values.add(jsonArray.getJSONObject(i).getString(attribute).toLowerCase());
+    /**
+     * Loads the executions of a cycle in place of those that missed a value, unless another thread did meanwhile
+     * @param key the key of the cycle
+     * @param stale the executions that missed the value, null if not loaded yet
+     * @return the executions of the cycle
+     */
+    private ExecutionIndex reloadExecutionIndex(String key, ExecutionIndex stale, String projectId, String versionId, String cycleId) {
+        synchronized (executionLoads.computeIfAbsent(key, it -> new Object())) {
+            ExecutionIndex index = executionIndexes.get(key);
+            if (index == null || index == stale) {
+                index = getExecutionIndex(projectId, versionId, cycleId);
+                executionIndexes.put(key, index);
+            }
+            return index;
         }
-        index = IntStream.range(0, values.size()).filter(i -> values.get(i).contains(labelValue.toLowerCase())).findFirst().getAsInt();
-        return jsonArray.getJSONObject(index);
     }
 
-    //Search all the steps of tc executionId , returns the testStepId according the orderId
-    private String getTestStepIdViaOrder(List<TestStepExecution> testStepExecutions, int ordering){
+    //Loads the executions of a cycle, indexed by the search attribute
+    private ExecutionIndex getExecutionIndex(String projectId, String versionId, String cycleId) {
+        try { Thread.sleep(1000); } catch (Exception e) {}
+        //read as a stream, only the id and the attribute of each execution are kept
+        ExecutionIndex index = restTemplate.execute(zapiUrl + "execution?projectId=" + projectId + "&versionId=" + versionId + "&cycleId=" + cycleId, HttpMethod.GET,
+                request -> request.getHeaders().setContentType(MediaType.APPLICATION_JSON),
+                response -> ExecutionIndex.read(response.getBody(), attribute));
+        log.debug("Loaded {} executions of cycle {}", index.size(), cycleId);
+        return index;
+    }
+
+    /**
+     * Search all the steps of tc executionId , returns the testStepId according the orderId
+     * @param testStepExecutions the steps of an execution, see {@link #getTestSteps(String)}
+     * @param ordering the ordering of the step, from 0
+     * @return the test step execution id, empty if not found
+     */
+    public String getTestStepIdViaOrder(List<TestStepExecution> testStepExecutions, int ordering){
 
         TestStepExecution result = testStepExecutions.stream().filter(it->it.getOrderId().equals(ordering+1)).findFirst().orElse(null);
         return (result != null) ? String.valueOf(result.getId()) : "";